@@ -0,0 +1,68 @@
+package net.schwarzbaer.java.tools.openwebifcontroller;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Vector;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Collects values, that arrive from other threads, over a short time window and applies them together in one EDT task.
+ * A pending value is replaced by a new value with the same key.
+ */
+public class EDTCoalescer<K,V>
+{
+	public static final int MIN_INTERVAL_ms = 16;
+
+	private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(run->{
+		Thread thread = new Thread(run, "EDTCoalescer");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final LinkedHashMap<K,V> pendingValues;
+	private final Consumer<Collection<V>> applyValues;
+	private boolean isScheduled;
+	private int interval_ms;
+
+	/** @param applyValues  is called in the EDT with all values, that were posted since its last call */
+	public EDTCoalescer(int interval_ms, Consumer<Collection<V>> applyValues)
+	{
+		this.applyValues = applyValues;
+		pendingValues = new LinkedHashMap<>();
+		isScheduled = false;
+		setInterval_ms(interval_ms);
+	}
+
+	public synchronized void setInterval_ms(int interval_ms)
+	{
+		this.interval_ms = Math.max(MIN_INTERVAL_ms, interval_ms);
+	}
+
+	public synchronized void post(K key, V value)
+	{
+		pendingValues.put(key, value);
+		if (!isScheduled)
+		{
+			isScheduled = true;
+			scheduler.schedule(()->SwingUtilities.invokeLater(this::applyPendingValues), interval_ms, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private void applyPendingValues()
+	{
+		Vector<V> values;
+		synchronized (this)
+		{
+			values = new Vector<>(pendingValues.values());
+			pendingValues.clear();
+			isScheduled = false;
+		}
+		if (!values.isEmpty())
+			applyValues.accept(values);
+	}
+}
@@ -0,0 +1,55 @@
+package net.schwarzbaer.java.tools.openwebifcontroller;
+
+import java.awt.AWTEvent;
+import java.awt.Toolkit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps track of running foreground requests (progress dialogs, EPG loading, ...) and of the last user input,
+ * so that background work can step aside.
+ */
+public final class ForegroundActivity
+{
+	private static final AtomicInteger runningTasks = new AtomicInteger(0);
+	private static volatile long lastUserInput_ms = System.currentTimeMillis();
+	private static boolean isInstalled = false;
+
+	private ForegroundActivity() {}
+
+	public static synchronized void install()
+	{
+		if (isInstalled) return;
+		isInstalled = true;
+		Toolkit.getDefaultToolkit().addAWTEventListener(
+				e -> lastUserInput_ms = System.currentTimeMillis(),
+				AWTEvent.KEY_EVENT_MASK | AWTEvent.MOUSE_EVENT_MASK | AWTEvent.MOUSE_WHEEL_EVENT_MASK
+		);
+	}
+
+	public static void begin()
+	{
+		runningTasks.incrementAndGet();
+	}
+
+	public static void end()
+	{
+		runningTasks.decrementAndGet();
+	}
+
+	public static void run(Runnable task)
+	{
+		begin();
+		try { task.run(); }
+		finally { end(); }
+	}
+
+	public static boolean isRunning()
+	{
+		return runningTasks.get() > 0;
+	}
+
+	public static long getIdleTime_ms()
+	{
+		return System.currentTimeMillis() - lastUserInput_ms;
+	}
+}
@@ -335,10 +335,14 @@ public class OWCTools
 	}
 	
 	public static void runWithProgressDialog(Window parent, String title, Consumer<ProgressDialog> action) {
-		ProgressDialog.runWithProgressDialog(parent, title, 400, action);
+		ProgressDialog.runWithProgressDialog(parent, title, 400, pd -> ForegroundActivity.run(() -> action.accept(pd)));
 	}
 	public static <ReturnValue> ReturnValue runWithProgressDialogRV(Window parent, String title, Function<ProgressDialog,ReturnValue> action) {
-		return ProgressDialog.runWithProgressDialogRV(parent, title, 400, action);
+		return ProgressDialog.runWithProgressDialogRV(parent, title, 400, pd -> {
+			ForegroundActivity.begin();
+			try { return action.apply(pd); }
+			finally { ForegroundActivity.end(); }
+		});
 	}
 	
 	public static Consumer<String> createProgressTaskFcn(ProgressView pd, String moduleTitle) {
@@ -59,9 +59,12 @@ import net.schwarzbaer.java.lib.openwebif.Timers;
 import net.schwarzbaer.java.lib.system.Settings;
 import net.schwarzbaer.java.lib.system.Settings.DefaultAppSettings.SplitPaneDividersDefinition;
 import net.schwarzbaer.java.tools.openwebifcontroller.OWCTools.LogWindowInterface;
+import net.schwarzbaer.java.tools.openwebifcontroller.alreadyseenevents.AlreadySeenEventsConverter;
 import net.schwarzbaer.java.tools.openwebifcontroller.alreadyseenevents.AlreadySeenEventsViewer;
 import net.schwarzbaer.java.tools.openwebifcontroller.bouquetsnstations.BouquetFileEditor;
 import net.schwarzbaer.java.tools.openwebifcontroller.bouquetsnstations.BouquetsNStations;
+import net.schwarzbaer.java.tools.openwebifcontroller.bouquetsnstations.PiconLoader;
+import net.schwarzbaer.java.tools.openwebifcontroller.bouquetsnstations.PiconPrefetcher;
 import net.schwarzbaer.java.tools.openwebifcontroller.controls.AbstractControlPanel;
 import net.schwarzbaer.java.tools.openwebifcontroller.controls.MessageControl;
 import net.schwarzbaer.java.tools.openwebifcontroller.controls.PowerControl;
@@ -95,7 +98,12 @@ public class OpenWebifController implements EPGDialog.ExternCommands, AbstractCo
 	
 	public enum LocalDataFile {
 		AlreadySeenEvents("AlreadySeenEvents.data"),
+		AlreadySeenEventsJournal("AlreadySeenEvents.journal"),
+		AlreadySeenEventsBinary("AlreadySeenEvents.bin"),
 		EPGEventGenres("EPGEventGenres.data"),
+		EPGCache("EPGCache.data"),
+		PiconCache("PiconCache"),
+		PiconArchive("PiconArchive.zip"),
 		;
 		private final String filename;
 		private LocalDataFile(String filename) { this.filename = filename; }
@@ -149,6 +157,9 @@ public class OpenWebifController implements EPGDialog.ExternCommands, AbstractCo
 			System.out.println("  -mute                      Turns volume off");
 			System.out.println("  --reboot                   Restarts STB (Linux & GUI)");
 			System.out.println("  --stationswitch            Start StationSwitch");
+			System.out.println("  --ase2bin  [text] [binary] Converts Already Seen Events from text to binary format");
+			System.out.println("  --ase2text [binary] [text] Converts Already Seen Events from binary to text format");
+			System.out.println("  --asebenchmark [runs]      Compares load times of text and binary format of Already Seen Events");
 			System.out.println();
 			
 		} else {
@@ -162,6 +173,39 @@ public class OpenWebifController implements EPGDialog.ExternCommands, AbstractCo
 				
 				return;
 			}
+			
+			if (args[0].equalsIgnoreCase("--ase2bin") || args[0].equalsIgnoreCase("--ase2text")) {
+				boolean toBinary = args[0].equalsIgnoreCase("--ase2bin");
+				File textFile   = LocalDataFile.AlreadySeenEvents      .getFileForRead();
+				File binaryFile = LocalDataFile.AlreadySeenEventsBinary.getFileForRead();
+				if (args.length>1) { if (toBinary) textFile   = new File(args[1]); else binaryFile = new File(args[1]); }
+				if (args.length>2) { if (toBinary) binaryFile = new File(args[2]); else textFile   = new File(args[2]); }
+				
+				try {
+					int count;
+					if (toBinary) count = AlreadySeenEventsConverter.convertTextToBinary(textFile, binaryFile);
+					else          count = AlreadySeenEventsConverter.convertBinaryToText(binaryFile, textFile);
+					System.out.printf("%d criteria sets converted: \"%s\" -> \"%s\"%n", count,
+							(toBinary ? textFile : binaryFile).getAbsolutePath(),
+							(toBinary ? binaryFile : textFile).getAbsolutePath());
+				}
+				catch (IOException ex) { System.err.printf("IOException while converting Already Seen Events: %s%n", ex.getMessage()); }
+				
+				return;
+			}
+			
+			if (args[0].equalsIgnoreCase("--asebenchmark")) {
+				int runs = 10;
+				if (args.length>1) {
+					try { runs = Integer.parseInt(args[1]); }
+					catch (NumberFormatException ex) { System.err.printf("Invalid number of runs: \"%s\"%n", args[1]); return; }
+				}
+				
+				try { System.out.print(AlreadySeenEventsConverter.benchmarkLoadTime(runs)); }
+				catch (IOException ex) { System.err.printf("IOException while running benchmark: %s%n", ex.getMessage()); }
+				
+				return;
+			}
 				
 			String baseURL = null;
 			boolean turnOn = false;
@@ -237,7 +281,8 @@ public class OpenWebifController implements EPGDialog.ExternCommands, AbstractCo
 		public enum ValueKey {
 			BaseURL,
 			BouquetsNStations_UpdateEPGAlways, BouquetsNStations_TextViewLineWrap, BouquetsNStations_UpdatePlayableStates, BouquetsNStations_UpdateCurrentStation,
-			EPGDialogWidth, EPGDialogHeight, EPGDialog_TimeScale, EPGDialog_RowHeight, EPGDialog_LeadTime, EPGDialog_RangeTime,
+			PiconLoader_WorkerCount, PiconCache_MaxAge_days, PiconCache_MemoryBudget_MB, PiconCache_MissingTTL_h, PiconPrefetcher_IdleTime_s, PiconPrefetcher_MaxFetchesPerMinute,
+			EPGDialogWidth, EPGDialogHeight, EPGDialog_TimeScale, EPGDialog_RowHeight, EPGDialog_LeadTime, EPGDialog_RangeTime, EPGDialog_ParallelRequests, EPGCache_MaxBlockAge_min, EPG_UIUpdateInterval_ms,
 			LogWindow_WindowX, LogWindow_WindowY, LogWindow_WindowWidth, LogWindow_WindowHeight,
 			BouquetFileEditor_WindowX, BouquetFileEditor_WindowY, BouquetFileEditor_WindowWidth, BouquetFileEditor_WindowHeight,
 			MoviesPanel_ShowDescriptionInNameColumn, 
@@ -251,6 +296,7 @@ public class OpenWebifController implements EPGDialog.ExternCommands, AbstractCo
 			SplitPaneDivider_BouquetFileEditor_BouquetDataPanel,
 			SplitPaneDivider_BouquetFileEditor_BouquetFilePanel,
 			AlreadySeenEventsViewer_EpisodeStringFirst,
+			AlreadySeenEvents_BinarySnapshot,
 			AlreadySeenEventsViewer_RootSubNodeOrder,
 			LookAndFeel, UserDefColors,
 		}
@@ -494,6 +540,7 @@ public class OpenWebifController implements EPGDialog.ExternCommands, AbstractCo
 	
 	private void initialize() {
 		new InitDialog(mainWindow).start();
+		new PiconPrefetcher(bouquetsNStations::getBouquetData, OpenWebifController::getBaseURL_DontAskUser).start();
 		
 		/*
 		runWithProgressDialog("Initialize", pd->{
@@ -542,6 +589,12 @@ public class OpenWebifController implements EPGDialog.ExternCommands, AbstractCo
 				return true;
 			});
 			
+			addTask("Picon Archive", pd->{
+				OWCTools.setIndeterminateProgressTask(pd, "Import Picon Archive");
+				PiconLoader.getInstance().importArchiveIfPresent();
+				return true;
+			});
+			
 			addTask("Movies"               , true, false, pd->{ if (baseURL==null) return false; movies.readInitialMovieList(baseURL,pd);            return true; });
 			addTask("Bouquets 'n' Stations", true, false, pd->{ if (baseURL==null) return false; bouquetsNStations .readData(baseURL,pd);            return true; });
 			addTask("Timers"               , true, false, pd->{ if (baseURL==null) return false; timers            .readData(baseURL,pd);            return true; });
@@ -840,7 +893,7 @@ public class OpenWebifController implements EPGDialog.ExternCommands, AbstractCo
 		if (bouquet==null) return;
 		
 		EPGDialog.showDialog(
-				mainWindow, baseURL, epg, bouquet,
+				mainWindow, baseURL, bouquet,
 				timers.timerDataUpdateNotifier, bouquetsNStations.bouquetsNStationsUpdateNotifier,
 				this);
 	}
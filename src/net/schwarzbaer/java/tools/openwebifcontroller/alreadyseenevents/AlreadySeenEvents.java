@@ -5,19 +5,36 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationTargetException;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
@@ -27,6 +44,7 @@ import javax.swing.JMenu;
 import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.JPopupMenu;
+import javax.swing.SwingUtilities;
 
 import net.schwarzbaer.java.lib.gui.TextAreaDialog;
 import net.schwarzbaer.java.lib.gui.ValueListOutput;
@@ -38,6 +56,8 @@ import net.schwarzbaer.java.tools.openwebifcontroller.OpenWebifController;
 
 public class AlreadySeenEvents
 {
+	// must be initialized before instance, because constructor reads and serializes data
+	private static final Comparator<String> stringComparator = Comparator.<String,String>comparing(String::toLowerCase).thenComparing(Comparator.naturalOrder());
 	private static final AlreadySeenEvents instance = new AlreadySeenEvents();
 	public static AlreadySeenEvents getInstance() { return instance; }
 	
@@ -209,11 +229,62 @@ public class AlreadySeenEvents
 	
 	private final Map<String, EventCriteriaSet> alreadySeenEvents;
 	private final Vector<ChangeListener> changeListeners;
+	private final Map<Map<String, DescriptionData>, DescriptionMatcher> descriptionMatchers;
+	private final Map<VerdictKey, Optional<RuleOutput>> verdictCache;
+	private long verdictCacheGeneration;
+	private final LongAdder verdictCacheHits;
+	private final LongAdder verdictCacheMisses;
+	
+	private final EnumSet<ChangeListener.ChangeType> pendingChanges;
+	private int batchDepth;
+	private final AlreadySeenEventsJournal journal;
+	private final Object persistenceLock;
+	private final Object snapshotLock;
+	private long journalSequence;
+	private final Map<String, String> persistedBlocks;
+	private final Set<String> changedTitles;
+	private boolean isCompactionScheduled;
+	private final ExecutorService compactionExecutor;
+	private volatile boolean useBinarySnapshot;
+	
+	private static final int VERDICT_CACHE_SIZE = 50000;
+	private static final int  JOURNAL_MAX_RECORDS = 200;
+	private static final long JOURNAL_MAX_SIZE = 256*1024;
+	
+	private record VerdictKey(String title, String station, String description, String extDescription) {}
 	
 	AlreadySeenEvents()
 	{
 		alreadySeenEvents = new HashMap<>();
 		changeListeners = new Vector<>();
+		descriptionMatchers = new IdentityHashMap<>();
+		verdictCache = new LinkedHashMap<>(16, 0.75f, true)
+		{
+			private static final long serialVersionUID = -4186402251232569046L;
+			@Override protected boolean removeEldestEntry(Map.Entry<VerdictKey, Optional<RuleOutput>> eldest)
+			{
+				return size() > VERDICT_CACHE_SIZE;
+			}
+		};
+		verdictCacheGeneration = 0;
+		verdictCacheHits   = new LongAdder();
+		verdictCacheMisses = new LongAdder();
+		pendingChanges = EnumSet.noneOf(ChangeListener.ChangeType.class);
+		batchDepth = 0;
+		journal = new AlreadySeenEventsJournal(OpenWebifController.LocalDataFile.AlreadySeenEventsJournal.getFileForWrite());
+		persistenceLock = new Object();
+		snapshotLock = new Object();
+		journalSequence = 0;
+		persistedBlocks = new HashMap<>();
+		changedTitles = new HashSet<>();
+		useBinarySnapshot = OpenWebifController.settings.getBool(OpenWebifController.AppSettings.ValueKey.AlreadySeenEvents_BinarySnapshot, false);
+		isCompactionScheduled = false;
+		compactionExecutor = Executors.newSingleThreadExecutor(run->{
+			Thread thread = new Thread(run, "AlreadySeenEvents.Compaction");
+			thread.setDaemon(true);
+			return thread;
+		});
+		
 		readFromFile();
 	}
 
@@ -230,6 +301,8 @@ public class AlreadySeenEvents
 	void deleteECS(String title)
 	{
 		alreadySeenEvents.remove(title);
+		markAsChanged(title);
+		clearVerdictCache();
 	}
 
 	EventCriteriaSet createECS(String title)
@@ -239,6 +312,8 @@ public class AlreadySeenEvents
 		
 		EventCriteriaSet ecs = EventCriteriaSet.create(title, false, false);
 		alreadySeenEvents.put(title, ecs);
+		markAsChanged(title);
+		clearVerdictCache();
 		return ecs;
 	}
 
@@ -249,8 +324,35 @@ public class AlreadySeenEvents
 		
 		DescriptionData descData = new DescriptionData();
 		descMap.put(description, descData);
+		descriptionsChanged(descMap);
 		return descData;
 	}
+	
+	/**
+	 * Marks the event criteria set of <code>title</code> as changed or deleted.
+	 * Only marked sets are written to the journal by the next {@link #writeToFileAndNotify(ChangeListener.ChangeType)}.
+	 */
+	void markAsChanged(String title)
+	{
+		if (title==null) return;
+		synchronized (changedTitles)
+		{
+			changedTitles.add(title);
+		}
+	}
+	
+	/**
+	 * Has to be called right after <code>descMap</code> was changed (text added, removed or renamed, operator changed).
+	 * Otherwise its compiled matcher could return texts, that aren't in the map anymore.
+	 */
+	void descriptionsChanged(Map<String, DescriptionData> descMap)
+	{
+		synchronized (descriptionMatchers)
+		{
+			descriptionMatchers.remove(descMap);
+		}
+		clearVerdictCache();
+	}
 
 	public void    addChangeListener(ChangeListener l) { changeListeners.   add(l); }
 	public void removeChangeListener(ChangeListener l) { changeListeners.remove(l); }
@@ -263,84 +365,161 @@ public class AlreadySeenEvents
 
 	void readFromFile()
 	{
-		File file = OpenWebifController.LocalDataFile.AlreadySeenEvents.getFileForRead();
-		if (file==null)
+		alreadySeenEvents.clear();
+		clearDescriptionMatchers();
+		clearVerdictCache();
+		
+		File textFile   = OpenWebifController.LocalDataFile.AlreadySeenEvents      .getFileForRead();
+		File binaryFile = OpenWebifController.LocalDataFile.AlreadySeenEventsBinary.getFileForRead();
+		
+		// the newer snapshot wins -> switching between both formats keeps all changes
+		boolean isRead = false;
+		if (binaryFile.isFile() && (!textFile.isFile() || binaryFile.lastModified() >= textFile.lastModified()))
 		{
-			System.err.printf("Can't read Already Seen Events from file.%n");
-			return;
+			System.out.printf("Read Already Seen Events from binary file \"%s\" ...%n", binaryFile.getAbsolutePath());
+			try
+			{
+				alreadySeenEvents.putAll(AlreadySeenEventsBinaryFormat.read(binaryFile));
+				isRead = true;
+			}
+			catch (IOException ex)
+			{
+				System.err.printf("IOException while reading file \"%s\": %s%n", binaryFile.getAbsolutePath(), ex.getMessage());
+				// ex.printStackTrace();
+			}
 		}
-		System.out.printf("Read Already Seen Events from file \"%s\" ...%n", file.getAbsolutePath());
 		
-		alreadySeenEvents.clear();
+		if (!isRead)
+		{
+			System.out.printf("Read Already Seen Events from file \"%s\" ...%n", textFile.getAbsolutePath());
+			try
+			{
+				alreadySeenEvents.putAll(readTextFile(textFile));
+			}
+			catch (FileNotFoundException ex) {}
+			catch (IOException ex)
+			{
+				System.err.printf("IOException while reading file \"%s\": %s%n", textFile.getAbsolutePath(), ex.getMessage());
+				// ex.printStackTrace();
+			}
+		}
 		
+		AlreadySeenEventsJournal.ReadResult journalData = journal.read();
+		replayJournal(journalData.records(), alreadySeenEvents);
+		if (!journalData.records().isEmpty())
+			System.out.printf("   %d changes replayed from journal%n", journalData.records().size());
+		
+		Map<String, String> blocks = serializeAll();
+		synchronized (changedTitles) { changedTitles.clear(); }
+		synchronized (persistenceLock)
+		{
+			persistedBlocks.clear();
+			persistedBlocks.putAll(blocks);
+		}
+		if (!journalData.records().isEmpty() || journalData.isDamaged())
+			scheduleCompaction();
+		
+		System.out.printf("Done%n");
+	}
+	
+	/** Applies the records of a journal in their order to <code>target</code>. */
+	static void replayJournal(List<AlreadySeenEventsJournal.Record> records, Map<String, EventCriteriaSet> target)
+	{
+		for (AlreadySeenEventsJournal.Record record : records)
+			switch (record.type())
+			{
+			case put:
+				try (BufferedReader in = new BufferedReader(new StringReader(record.payload())))
+				{
+					parseECSs(in, target);
+				}
+				catch (IOException ex) {}
+				break;
+			case delete:
+				target.remove(decode(record.payload()));
+				break;
+			}
+	}
+	
+	static Map<String, EventCriteriaSet> readTextFile(File file) throws IOException
+	{
+		Map<String, EventCriteriaSet> ecsMap = new HashMap<>();
 		try (BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)))
 		{
-			String value, line;
-			MutableECS ecs = null;
-			MutableStationData stationData = null;
-			EpisodeInfo episodeInfo = null;
+			parseECSs(in, ecsMap);
+		}
+		return ecsMap;
+	}
+	
+	static Map<String, EventCriteriaSet> parseBlocks(Collection<String> blocks) throws IOException
+	{
+		Map<String, EventCriteriaSet> ecsMap = new HashMap<>();
+		try (BufferedReader in = new BufferedReader(new StringReader(String.join("", blocks))))
+		{
+			parseECSs(in, ecsMap);
+		}
+		return ecsMap;
+	}
+	
+	private static void parseECSs(BufferedReader in, Map<String, EventCriteriaSet> target) throws IOException
+	{
+		String value, line;
+		MutableECS ecs = null;
+		MutableStationData stationData = null;
+		EpisodeInfo episodeInfo = null;
+		
+		while ( (line=in.readLine())!=null )
+		{
+			if (line.isBlank())
+				continue;
 			
-			while ( (line=in.readLine())!=null )
+			if (line.equals("[EventCriteriaSet]"))
 			{
-				if (line.isBlank())
-					continue;
-				
-				if (line.equals("[EventCriteriaSet]"))
+				saveRemainingData(target, ecs, stationData);
+				ecs = null;
+				stationData = null;
+				episodeInfo = null;
+			}
+			
+			if ( ecs == null)
+			{
+				if ((value=getValue(line, "title = "))!=null)
+					ecs = new MutableECS( decode( value ) );
+			}
+			else
+			{
+				if (line.equals("[Station]"))
 				{
-					saveRemainingData(ecs, stationData);
-					ecs = null;
+					saveRemainingStationData(ecs, stationData);
 					stationData = null;
-					episodeInfo = null;
 				}
 				
-				if ( ecs == null)
-				{
-					if ((value=getValue(line, "title = "))!=null)
-						ecs = new MutableECS( decode( value ) );
-				}
-				else
+				if ( (value=getValue(line, "station = "))!=null && stationData==null )
+					stationData = new MutableStationData( decode( value ) );
+				
+				for (TextOperator op : TextOperator.values())
 				{
-					if (line.equals("[Station]"))
-					{
-						saveRemainingStationData(ecs, stationData);
-						stationData = null;
-					}
-					
-					if ( (value=getValue(line, "station = "))!=null && stationData==null )
-						stationData = new MutableStationData( decode( value ) );
-					
-					for (TextOperator op : TextOperator.values())
-					{
-						if ( (value=getValue(line,    "desc%s = ".formatted(op.paramName)))!=null )
-							episodeInfo = setDescription(ecs, stationData, value, op, false);
-						if ( (value=getValue(line, "extdesc%s = ".formatted(op.paramName)))!=null )
-							episodeInfo = setDescription(ecs, stationData, value, op, true);
-					}
-					
-					if ( (value=getValue(line, "group = "))!=null)
-						ecs.group = value;
-					
-					if ( (value=getValue(line, "episodeT = "))!=null)
-						ecs.episode.episodeStr = value;
-					
-					if ( (value=getValue(line, "episodeD = "))!=null && episodeInfo!=null )
-						episodeInfo.episodeStr = value;
+					if ( (value=getValue(line,    "desc%s = ".formatted(op.paramName)))!=null )
+						episodeInfo = setDescription(ecs, stationData, value, op, false);
+					if ( (value=getValue(line, "extdesc%s = ".formatted(op.paramName)))!=null )
+						episodeInfo = setDescription(ecs, stationData, value, op, true);
 				}
+				
+				if ( (value=getValue(line, "group = "))!=null)
+					ecs.group = value;
+				
+				if ( (value=getValue(line, "episodeT = "))!=null)
+					ecs.episode.episodeStr = value;
+				
+				if ( (value=getValue(line, "episodeD = "))!=null && episodeInfo!=null )
+					episodeInfo.episodeStr = value;
 			}
-			
-			saveRemainingData(ecs, stationData);
-		}
-		catch (FileNotFoundException ex) {}
-		catch (IOException ex)
-		{
-			System.err.printf("IOException while reading file \"%s\": %s%n", file.getAbsolutePath(), ex.getMessage());
-			// ex.printStackTrace();
 		}
 		
-		System.out.printf("Done%n");
+		saveRemainingData(target, ecs, stationData);
 	}
 
-	private EpisodeInfo setDescription(MutableECS ecs, MutableStationData stationData, String value, TextOperator operator, boolean isExtDesc)
+	private static EpisodeInfo setDescription(MutableECS ecs, MutableStationData stationData, String value, TextOperator operator, boolean isExtDesc)
 	{
 		DescriptionData descriptionData = new DescriptionData(null, operator);
 		DescriptionMaps descMaps = stationData != null ? stationData.descriptions : ecs.descriptions;
@@ -349,16 +528,16 @@ public class AlreadySeenEvents
 		return descriptionData;
 	}
 
-	private void saveRemainingData(MutableECS ecs, MutableStationData stationData)
+	private static void saveRemainingData(Map<String, EventCriteriaSet> target, MutableECS ecs, MutableStationData stationData)
 	{
 		if (ecs!=null)
 		{
 			saveRemainingStationData(ecs, stationData);
-			alreadySeenEvents.put(ecs.title, ecs.convertToRecord());
+			target.put(ecs.title, ecs.convertToRecord());
 		}
 	}
 
-	private void saveRemainingStationData(MutableECS ecs, MutableStationData stationData)
+	private static void saveRemainingStationData(MutableECS ecs, MutableStationData stationData)
 	{
 		Objects.requireNonNull(ecs);
 		if (stationData!=null)
@@ -372,83 +551,326 @@ public class AlreadySeenEvents
 		return null;
 	}
 	
-	private static final Comparator<String> stringComparator = Comparator.<String,String>comparing(String::toLowerCase).thenComparing(Comparator.naturalOrder());
-	
 	void writeToFileAndNotify(ChangeListener.ChangeType changeType)
 	{
-		writeToFile();
-		notifyChangeListeners(changeType);
+		// invalidate at once and not in a listener -> nobody (listener or caller) gets a verdict based on the old rules
+		// grouping doesn't change any verdict, rules and episode texts do
+		if (changeType==ChangeListener.ChangeType.RuleSet)
+			clearDescriptionMatchers();
+		if (changeType!=ChangeListener.ChangeType.Grouping)
+			clearVerdictCache();
+		
+		synchronized (pendingChanges)
+		{
+			if (batchDepth > 0)
+			{
+				pendingChanges.add(changeType);
+				return;
+			}
+		}
+		
+		persistChanges();
+		OWCTools.callInGUIThread(() -> notifyChangeListeners(changeType));
 	}
 	
-	void writeToFile()
+	/**
+	 * Runs <code>action</code> as a batch of changes:
+	 * all calls of {@link #writeToFileAndNotify(ChangeListener.ChangeType)} within it are deferred
+	 * until the outermost batch is finished. Then the file is written once and each change type is notified once.
+	 */
+	void runInBatch(Runnable action)
 	{
-		File file = OpenWebifController.LocalDataFile.AlreadySeenEvents.getFileForWrite();
-		if (file==null)
+		synchronized (pendingChanges) { batchDepth++; }
+		
+		EnumSet<ChangeListener.ChangeType> changes = null;
+		try
 		{
-			System.err.printf("Can't write Already Seen Events to file.%n");
-			return;
+			action.run();
+		}
+		finally
+		{
+			synchronized (pendingChanges)
+			{
+				batchDepth--;
+				if (batchDepth == 0 && !pendingChanges.isEmpty())
+				{
+					changes = EnumSet.copyOf(pendingChanges);
+					pendingChanges.clear();
+				}
+			}
 		}
-		System.out.printf("Write Already Seen Events to file \"%s\" ...%n", file.getAbsolutePath());
 		
+		if (changes != null)
+		{
+			persistChanges();
+			for (ChangeListener.ChangeType changeType : changes)
+				OWCTools.callInGUIThread(() -> notifyChangeListeners(changeType));
+		}
+	}
+	
+	/**
+	 * Appends all event criteria sets, that were marked as changed or deleted since the last call, to the journal.
+	 * If the journal has grown too large, the snapshot file will be rewritten in background.
+	 */
+	private void persistChanges()
+	{
+		Vector<String> titles;
+		synchronized (changedTitles)
+		{
+			titles = new Vector<>(changedTitles);
+			changedTitles.clear();
+		}
+		if (titles.isEmpty())
+			return;
 		
-		try (PrintWriter out = new PrintWriter(file, StandardCharsets.UTF_8))
+		// only changed sets are serialized, a deleted set gets no block
+		Map<String, String> blocks = new HashMap<>();
+		for (String title : titles)
 		{
-			Vector<String> titles = new Vector<>( alreadySeenEvents.keySet() );
-			titles.sort(stringComparator);
-			
+			EventCriteriaSet ecs = alreadySeenEvents.get(title);
+			if (ecs!=null)
+				blocks.put(title, serialize(title, ecs));
+		}
+		
+		boolean isAppended, isJournalTooLarge;
+		synchronized (persistenceLock)
+		{
+			Vector<AlreadySeenEventsJournal.Record> records = new Vector<>();
 			for (String title : titles)
-				if (title!=null)
+			{
+				String block = blocks.get(title);
+				if (block==null)
 				{
-					out.printf("[EventCriteriaSet]%n");
-					out.printf("title = %s%n", encode(title));
-					
-					EventCriteriaSet ecs = alreadySeenEvents.get(title);
-					
-					VariableECSData variableData = ecs.variableData;
-					if (variableData!=null)
-					{
-						if (variableData.group!=null && !variableData.group.isBlank())
-							out.printf("group = %s%n", variableData.group);
-						if (variableData.hasEpisodeStr())
-							out.printf("episodeT = %s%n", ecs.variableData.episodeStr);
-					}
-					
-					writeDescriptionsMaps(out, ecs.descriptions);
-					
-					if (ecs.stations != null)
-					{
-						Vector<String> stations = new Vector<>( ecs.stations.keySet() );
-						stations.sort(stringComparator);
-						
-						for (String station : stations)
-						{
-							StationData stationData = ecs.stations.get(station);
-							out.printf("%n[Station]%n");
-							out.printf("station = %s%n", encode(station));
-							writeDescriptionsMaps(out, stationData.descriptions);
-						}
-					}
-					
-					out.printf("%n");
+					if (persistedBlocks.remove(title)!=null)
+						records.add(new AlreadySeenEventsJournal.Record(AlreadySeenEventsJournal.RecordType.delete, encode(title)));
 				}
+				else if (!block.equals(persistedBlocks.put(title, block)))
+					records.add(new AlreadySeenEventsJournal.Record(AlreadySeenEventsJournal.RecordType.put, block));
+			}
+			
+			if (records.isEmpty())
+				return;
+			
+			isAppended = journal.append(records);
+			if (isAppended)
+				journalSequence++;
+			isJournalTooLarge = journal.getRecordCount() > JOURNAL_MAX_RECORDS || journal.getSize() > JOURNAL_MAX_SIZE;
+		}
+		
+		if (!isAppended)
+			compact(); // journal isn't writable -> write complete file as before
+		
+		else if (isJournalTooLarge)
+			scheduleCompaction();
+	}
+	
+	private void scheduleCompaction()
+	{
+		synchronized (persistenceLock)
+		{
+			if (isCompactionScheduled) return;
+			isCompactionScheduled = true;
+		}
+		compactionExecutor.execute(() -> {
+			synchronized (persistenceLock) { isCompactionScheduled = false; }
+			compact();
+		});
+	}
+	
+	/**
+	 * Writes the persisted blocks to the snapshot file and clears the journal.
+	 * The blocks are copied under <code>persistenceLock</code>, the file is written outside of it.
+	 * So changes can be appended to the journal meanwhile. In that case the journal is kept:
+	 * its replay on top of the new snapshot gives the current state again.
+	 */
+	private void compact()
+	{
+		// copy inside of snapshotLock -> an older copy can't overwrite a newer snapshot
+		synchronized (snapshotLock)
+		{
+			Map<String, String> blocks;
+			long sequence;
+			synchronized (persistenceLock)
+			{
+				blocks = new HashMap<>(persistedBlocks);
+				sequence = journalSequence;
+			}
+			
+			if (!writeSnapshot(blocks))
+				return;
+			
+			synchronized (persistenceLock)
+			{
+				if (sequence == journalSequence)
+					// snapshot contains all changes of journal -> a replay of the journal isn't needed anymore
+					journal.clear();
+			}
+		}
+	}
+	
+	/** Writes the complete rule set to the snapshot file and clears the journal. */
+	void writeToFile()
+	{
+		Map<String, String> blocks = serializeAll();
+		synchronized (changedTitles) { changedTitles.clear(); }
+		synchronized (persistenceLock)
+		{
+			persistedBlocks.clear();
+			persistedBlocks.putAll(blocks);
+		}
+		compact();
+	}
+	
+	boolean isBinarySnapshot()
+	{
+		return useBinarySnapshot;
+	}
+	
+	/** Switches the format of the snapshot file. The snapshot will be rewritten in background. */
+	void setBinarySnapshot(boolean useBinarySnapshot)
+	{
+		this.useBinarySnapshot = useBinarySnapshot;
+		OpenWebifController.settings.putBool(OpenWebifController.AppSettings.ValueKey.AlreadySeenEvents_BinarySnapshot, useBinarySnapshot);
+		scheduleCompaction();
+	}
+	
+	private boolean writeSnapshot(Map<String, String> blocks)
+	{
+		boolean isBinary = useBinarySnapshot;
+		File file = (isBinary ? OpenWebifController.LocalDataFile.AlreadySeenEventsBinary : OpenWebifController.LocalDataFile.AlreadySeenEvents).getFileForWrite();
+		if (file==null)
+		{
+			System.err.printf("Can't write Already Seen Events to file.%n");
+			return false;
+		}
+		System.out.printf("Write Already Seen Events to %sfile \"%s\" ...%n", isBinary ? "binary " : "", file.getAbsolutePath());
+		
+		File tempFile = new File(file.getParentFile(), file.getName()+".tmp");
+		try
+		{
+			if (isBinary)
+				AlreadySeenEventsBinaryFormat.write(tempFile, parseBlocks(blocks.values()));
+			else
+				writeTextBlocks(tempFile, blocks);
+		}
+		catch (IOException ex)
+		{
+			System.err.printf("IOException while writing file \"%s\": %s%n", tempFile.getAbsolutePath(), ex.getMessage());
+			// ex.printStackTrace();
+			return false;
+		}
+		
+		try
+		{
+			try { Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE); }
+			catch (AtomicMoveNotSupportedException ex) { Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING); }
 		}
 		catch (IOException ex)
 		{
-			System.err.printf("IOException while writing file \"%s\": %s%n", file.getAbsolutePath(), ex.getMessage());
+			System.err.printf("IOException while replacing file \"%s\": %s%n", file.getAbsolutePath(), ex.getMessage());
 			// ex.printStackTrace();
+			return false;
 		}
 		
 		System.out.printf("Done%n");
+		return true;
+	}
+	
+	private Map<String, String> serializeAll()
+	{
+		return serializeAll(alreadySeenEvents);
+	}
+	
+	/** @return deep copy of the current rule set, that can be used in another thread */
+	Map<String, EventCriteriaSet> copyRuleSet()
+	{
+		Map<String, EventCriteriaSet> copy = new HashMap<>();
+		try (BufferedReader in = new BufferedReader(new StringReader(String.join("", serializeAll().values()))))
+		{
+			parseECSs(in, copy);
+		}
+		catch (IOException ex) {} // not thrown by a StringReader
+		return copy;
+	}
+	
+	static void writeTextFile(File file, Map<String, EventCriteriaSet> ecsMap) throws IOException
+	{
+		writeTextBlocks(file, serializeAll(ecsMap));
+	}
+	
+	private static void writeTextBlocks(File file, Map<String, String> blocks) throws IOException
+	{
+		Vector<String> titles = new Vector<>( blocks.keySet() );
+		titles.sort(stringComparator);
+		
+		StringBuilder sb = new StringBuilder();
+		for (String title : titles)
+			sb.append(blocks.get(title));
+		
+		try (FileOutputStream out = new FileOutputStream(file))
+		{
+			out.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+			out.getFD().sync();
+		}
+	}
+	
+	/** @return text block of each event criteria set, like it is written to the text file */
+	static Map<String, String> serializeAll(Map<String, EventCriteriaSet> ecsMap)
+	{
+		Map<String, String> blocks = new HashMap<>();
+		ecsMap.forEach((title, ecs) -> {
+			if (title!=null)
+				blocks.put(title, serialize(title, ecs));
+		});
+		return blocks;
+	}
+	
+	private static String serialize(String title, EventCriteriaSet ecs)
+	{
+		StringWriter stringWriter = new StringWriter();
+		try (PrintWriter out = new PrintWriter(stringWriter))
+		{
+			out.printf("[EventCriteriaSet]%n");
+			out.printf("title = %s%n", encode(title));
+			
+			VariableECSData variableData = ecs.variableData;
+			if (variableData!=null)
+			{
+				if (variableData.group!=null && !variableData.group.isBlank())
+					out.printf("group = %s%n", variableData.group);
+				if (variableData.hasEpisodeStr())
+					out.printf("episodeT = %s%n", ecs.variableData.episodeStr);
+			}
+			
+			writeDescriptionsMaps(out, ecs.descriptions);
+			
+			if (ecs.stations != null)
+			{
+				Vector<String> stations = new Vector<>( ecs.stations.keySet() );
+				stations.sort(stringComparator);
+				
+				for (String station : stations)
+				{
+					StationData stationData = ecs.stations.get(station);
+					out.printf("%n[Station]%n");
+					out.printf("station = %s%n", encode(station));
+					writeDescriptionsMaps(out, stationData.descriptions);
+				}
+			}
+			
+			out.printf("%n");
+		}
+		return stringWriter.toString();
 	}
 
-	private void writeDescriptionsMaps(PrintWriter out, DescriptionMaps  descriptionsMaps)
+	private static void writeDescriptionsMaps(PrintWriter out, DescriptionMaps  descriptionsMaps)
 	{
 		if (descriptionsMaps == null) return;
 		writeDescriptionsMap(out, descriptionsMaps.standard,    "desc");
 		writeDescriptionsMap(out, descriptionsMaps.extended, "extdesc");
 	}
 
-	private void writeDescriptionsMap(PrintWriter out, Map<String, DescriptionData> descriptionsMap, String paramPrefix)
+	private static void writeDescriptionsMap(PrintWriter out, Map<String, DescriptionData> descriptionsMap, String paramPrefix)
 	{
 		if (descriptionsMap == null) return;
 		
@@ -556,12 +978,12 @@ public class AlreadySeenEvents
 			this.getData = Objects.requireNonNull( getData );
 			
 			parent.add(menuAdd = new JMenu("Mark as Already Seen"));
-			menuAdd.add(OWCTools.createMenuItem("Title"                      , e -> markAsAlreadySeen(this.getSource, this.getSources, this.getData, this, updateAfterMenuAction, false, false, false)));
-			menuAdd.add(OWCTools.createMenuItem("Title, Description"         , e -> markAsAlreadySeen(this.getSource, this.getSources, this.getData, this, updateAfterMenuAction, false, true , false)));
-			menuAdd.add(OWCTools.createMenuItem("Title, Extended Description", e -> markAsAlreadySeen(this.getSource, this.getSources, this.getData, this, updateAfterMenuAction, false, false, true )));
-			menuAdd.add(OWCTools.createMenuItem("Title, Station"             , e -> markAsAlreadySeen(this.getSource, this.getSources, this.getData, this, updateAfterMenuAction, true , false, false)));
-			menuAdd.add(OWCTools.createMenuItem("Title, Station, Description", e -> markAsAlreadySeen(this.getSource, this.getSources, this.getData, this, updateAfterMenuAction, true , true , false)));
-			menuAdd.add(OWCTools.createMenuItem("Title, Station, Ext. Desc." , e -> markAsAlreadySeen(this.getSource, this.getSources, this.getData, this, updateAfterMenuAction, true , false, true )));
+			menuAdd.add(OWCTools.createMenuItem("Title"                      , e -> markAsAlreadySeen(this.window, this.getSource, this.getSources, this.getData, this, updateAfterMenuAction, false, false, false)));
+			menuAdd.add(OWCTools.createMenuItem("Title, Description"         , e -> markAsAlreadySeen(this.window, this.getSource, this.getSources, this.getData, this, updateAfterMenuAction, false, true , false)));
+			menuAdd.add(OWCTools.createMenuItem("Title, Extended Description", e -> markAsAlreadySeen(this.window, this.getSource, this.getSources, this.getData, this, updateAfterMenuAction, false, false, true )));
+			menuAdd.add(OWCTools.createMenuItem("Title, Station"             , e -> markAsAlreadySeen(this.window, this.getSource, this.getSources, this.getData, this, updateAfterMenuAction, true , false, false)));
+			menuAdd.add(OWCTools.createMenuItem("Title, Station, Description", e -> markAsAlreadySeen(this.window, this.getSource, this.getSources, this.getData, this, updateAfterMenuAction, true , true , false)));
+			menuAdd.add(OWCTools.createMenuItem("Title, Station, Ext. Desc." , e -> markAsAlreadySeen(this.window, this.getSource, this.getSources, this.getData, this, updateAfterMenuAction, true , false, true )));
 			
 			miShowRule = parent.add(OWCTools.createMenuItem("##", e->{
 				if (singleSourceAlreadySeenRule != null)
@@ -600,6 +1022,7 @@ public class AlreadySeenEvents
 	}
 
 	private <V> void markAsAlreadySeen(
+			Window window,
 			Supplier<V> getSource,
 			Supplier<V[]> getSources,
 			GetData<V> getData,
@@ -607,10 +1030,63 @@ public class AlreadySeenEvents
 			Runnable updateAfterMenuAction,
 			boolean useStation, boolean useDescription, boolean useExtDescription
 	) {
-		doWithSources(getSource, getSources, t1 -> markAsAlreadySeen(t1, getData, userInteraction, useStation, useDescription, useExtDescription) );
-		if (updateAfterMenuAction!=null)
-			updateAfterMenuAction.run();
-		writeToFileAndNotify(ChangeListener.ChangeType.RuleSet);
+		Vector<V> sources = new Vector<>();
+		doWithSources(getSource, getSources, source -> { if (source!=null) sources.add(source); });
+		
+		if (sources.size() <= 1)
+		{
+			for (V source : sources)
+				markAsAlreadySeen(source, getData, userInteraction, useStation, useDescription, useExtDescription);
+			writeToFileAndNotify(ChangeListener.ChangeType.RuleSet);
+			if (updateAfterMenuAction!=null)
+				updateAfterMenuAction.run();
+			return;
+		}
+		
+		// many sources -> apply all in memory, write file once, notify once, collect messages
+		BatchMessages batchMessages = new BatchMessages();
+		OWCTools.runWithProgressDialog(window, "Mark as Already Seen", pd -> {
+			runInBatch(() -> {
+				for (int i=0; i<sources.size(); i++)
+				{
+					if (Thread.currentThread().isInterrupted()) break;
+					int index = i;
+					V source = sources.get(i);
+					SwingUtilities.invokeLater(() -> {
+						pd.setTaskTitle("Mark %s %d of %d as Already Seen".formatted(getData.sourceLabel, index+1, sources.size()));
+						pd.setValue(index, sources.size());
+					});
+					// rule set is read in GUI thread -> change it there
+					runInGUIThreadAndWait(() -> markAsAlreadySeen(source, getData, batchMessages, useStation, useDescription, useExtDescription));
+				}
+				writeToFileAndNotify(ChangeListener.ChangeType.RuleSet);
+			});
+			// batch is finished -> rules are invalidated, written and notification is queued before this update
+			if (updateAfterMenuAction!=null)
+				OWCTools.callInGUIThread(updateAfterMenuAction);
+			OWCTools.callInGUIThread(() -> batchMessages.showMessages(userInteraction, getData.sourceLabel, sources.size()));
+		});
+	}
+
+	private static void runInGUIThreadAndWait(Runnable task)
+	{
+		if (SwingUtilities.isEventDispatchThread())
+		{
+			task.run();
+			return;
+		}
+		try
+		{
+			SwingUtilities.invokeAndWait(task);
+		}
+		catch (InvocationTargetException ex)
+		{
+			System.err.printf("%s while marking as \"already seen\": %s%n", ex.getCause().getClass().getSimpleName(), ex.getCause().getMessage());
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+		}
 	}
 
 	private <V> void doWithSources(
@@ -633,6 +1109,28 @@ public class AlreadySeenEvents
 	{
 		void showMessage(String title, String... msgLines);
 	}
+	
+	private static class BatchMessages implements UserInteraction
+	{
+		private final Map<String, Integer> reasons = new LinkedHashMap<>();
+		private int count = 0;
+		
+		@Override
+		public synchronized void showMessage(String title, String... msgLines)
+		{
+			count++;
+			reasons.merge(String.join(" ", msgLines), 1, Integer::sum);
+		}
+		
+		synchronized void showMessages(UserInteraction userInteraction, String sourceLabel, int total)
+		{
+			if (count == 0) return;
+			Vector<String> lines = new Vector<>();
+			lines.add("%d of %d %ss couldn't be marked as \"already seen\":".formatted(count, total, sourceLabel));
+			reasons.forEach((reason, n) -> lines.add("%dx  %s".formatted(n, reason)));
+			userInteraction.showMessage("Can't mark as \"already seen\"", lines.toArray(String[]::new));
+		}
+	}
 
 	private <V>void markAsAlreadySeen(
 			final V source,
@@ -657,6 +1155,7 @@ public class AlreadySeenEvents
 		}
 		
 		final EventCriteriaSet ecs = alreadySeenEvents.computeIfAbsent(title, k -> EventCriteriaSet.create(title, useStation, (useDescription || useExtDescription) && !useStation));
+		markAsChanged(title);
 		
 		if (!useStation && !useDescription && !useExtDescription) // define a general event criteria set ( based only on title )
 		{
@@ -758,6 +1257,7 @@ public class AlreadySeenEvents
 				
 				Map <String, DescriptionData> descMap = useDescription ? descriptions.standard : descriptions.extended;
 				descMap.put(description, new DescriptionData());
+				descriptionsChanged(descMap);
 			}
 		}
 	}
@@ -779,6 +1279,60 @@ public class AlreadySeenEvents
 		if (title == null)
 			return null;
 		
+		if (!alreadySeenEvents.containsKey(title))
+			return null;
+		
+		VerdictKey key = new VerdictKey(title, getData.getStation(source), getData.getDescription(source), getData.getExtDescription(source));
+		long generation;
+		synchronized (verdictCache)
+		{
+			Optional<RuleOutput> verdict = verdictCache.get(key);
+			if (verdict != null)
+			{
+				verdictCacheHits.increment();
+				return verdict.orElse(null);
+			}
+			generation = verdictCacheGeneration;
+		}
+		
+		verdictCacheMisses.increment();
+		RuleOutput ruleOutput = findRule(key);
+		
+		synchronized (verdictCache)
+		{
+			if (generation == verdictCacheGeneration) // otherwise rules have changed meanwhile
+				verdictCache.put(key, Optional.ofNullable(ruleOutput));
+		}
+		return ruleOutput;
+	}
+	
+	private void clearVerdictCache()
+	{
+		synchronized (verdictCache)
+		{
+			verdictCache.clear();
+			verdictCacheGeneration++;
+		}
+	}
+	
+	String generateVerdictCacheReport()
+	{
+		long hits   = verdictCacheHits  .sum();
+		long misses = verdictCacheMisses.sum();
+		int size;
+		synchronized (verdictCache) { size = verdictCache.size(); }
+		
+		ValueListOutput out = new ValueListOutput();
+		out.add(0, "Cached Verdicts", "%d (max. %d)", size, VERDICT_CACHE_SIZE);
+		out.add(0, "Hits"  , hits  );
+		out.add(0, "Misses", misses);
+		out.add(0, "Hit Rate", "%s", hits+misses==0 ? "--" : String.format("%1.1f%%", hits*100.0/(hits+misses)));
+		return out.generateOutput();
+	}
+	
+	private RuleOutput findRule(VerdictKey key)
+	{
+		final String title = key.title;
 		final EventCriteriaSet ecs = alreadySeenEvents.get(title);
 		if (ecs == null)
 			return null;
@@ -792,7 +1346,7 @@ public class AlreadySeenEvents
 		String station = null;
 		if (ecs.stations != null)
 		{
-			station = getData.getStation(source);
+			station = key.station;
 			if (station != null)
 			{
 				StationData stationData = ecs.stations.get(station);
@@ -813,8 +1367,8 @@ public class AlreadySeenEvents
 			return null;
 		
 		RuleOutput ruleOutput = null;
-		if (ruleOutput == null) ruleOutput = findDescription(title, station, getData.getDescription   (source), descriptions.standard, false);
-		if (ruleOutput == null) ruleOutput = findDescription(title, station, getData.getExtDescription(source), descriptions.extended, true );
+		if (ruleOutput == null) ruleOutput = findDescription(title, station, key.description   , descriptions.standard, false);
+		if (ruleOutput == null) ruleOutput = findDescription(title, station, key.extDescription, descriptions.extended, true );
 		return ruleOutput;
 	}
 	
@@ -823,30 +1377,37 @@ public class AlreadySeenEvents
 		if (description == null)
 			return null; // no description defined in source
 		
-		List<String> descStrs = descriptions
-			.keySet()
-			.stream()
-			.sorted(Comparator.comparing(String::length, Comparator.reverseOrder()))
-			.toList();
+		String descStr = getDescriptionMatcher(descriptions).findLongestMatch(description);
+		if (descStr == null)
+			return null;
 		
-		for (String descStr : descStrs)
+		DescriptionData descriptionData = descriptions.get(descStr);
+		if (descriptionData == null)
 		{
-			DescriptionData descriptionData = descriptions.get(descStr);
-			if (descMeetsCriteria(description, descStr, descriptionData.operator))
-				return new RuleOutput(title, station, descStr, isExtDesc, descriptionData.operator, descriptionData.getEpisodeStr());
+			// map was changed after matcher was compiled -> compile it again
+			synchronized (descriptionMatchers) { descriptionMatchers.remove(descriptions); }
+			descStr = getDescriptionMatcher(descriptions).findLongestMatch(description);
+			descriptionData = descStr==null ? null : descriptions.get(descStr);
+			if (descriptionData == null)
+				return null;
+		}
+		return new RuleOutput(title, station, descStr, isExtDesc, descriptionData.operator, descriptionData.getEpisodeStr());
+	}
+
+	private DescriptionMatcher getDescriptionMatcher(Map<String, DescriptionData> descriptions)
+	{
+		synchronized (descriptionMatchers)
+		{
+			return descriptionMatchers.computeIfAbsent(descriptions, DescriptionMatcher::new);
 		}
-		return null;
 	}
 
-	private boolean descMeetsCriteria(String sourceDesc, String ruleDesc, TextOperator operator)
+	private void clearDescriptionMatchers()
 	{
-		switch (operator)
+		synchronized (descriptionMatchers)
 		{
-		case Equals    : if (sourceDesc.equals    (ruleDesc)) return true; break;
-		case StartsWith: if (sourceDesc.startsWith(ruleDesc)) return true; break;
-		case Contains  : if (sourceDesc.contains  (ruleDesc)) return true; break;
+			descriptionMatchers.clear();
 		}
-		return false;
 	}
 	
 	public static class RuleOutput
@@ -0,0 +1,251 @@
+package net.schwarzbaer.java.tools.openwebifcontroller.alreadyseenevents;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Vector;
+
+import net.schwarzbaer.java.tools.openwebifcontroller.alreadyseenevents.AlreadySeenEvents.DescriptionData;
+import net.schwarzbaer.java.tools.openwebifcontroller.alreadyseenevents.AlreadySeenEvents.DescriptionMaps;
+import net.schwarzbaer.java.tools.openwebifcontroller.alreadyseenevents.AlreadySeenEvents.EpisodeInfo;
+import net.schwarzbaer.java.tools.openwebifcontroller.alreadyseenevents.AlreadySeenEvents.EventCriteriaSet;
+import net.schwarzbaer.java.tools.openwebifcontroller.alreadyseenevents.AlreadySeenEvents.StationData;
+import net.schwarzbaer.java.tools.openwebifcontroller.alreadyseenevents.AlreadySeenEvents.TextOperator;
+
+/**
+ * Binary snapshot format of {@link AlreadySeenEvents}:
+ * <pre>
+ * int      magic "ASEB", int version
+ * int      string count, { int length, UTF-8 bytes }   -- string table, each string is stored once
+ * int      ECS count, { int length, ECS record }       -- strings are given as indices into string table, -1 for <code>null</code>
+ * </pre>
+ * Files are read completely into a heap buffer through a {@link FileChannel}.
+ * They aren't memory-mapped: on Windows a mapped file can't be replaced or deleted
+ * until the mapping is released by the garbage collector, so the compaction couldn't replace the snapshot file.
+ */
+class AlreadySeenEventsBinaryFormat
+{
+	private static final int MAGIC   = 0x41534542; // "ASEB"
+	private static final int VERSION = 1;
+	private static final int NONE    = -1;
+
+	private static final int FLAG_STATIONS     = 1;
+	private static final int FLAG_DESCRIPTIONS = 2;
+
+	static void write(File file, Map<String, EventCriteriaSet> ecsMap) throws IOException
+	{
+		StringTable strings = new StringTable();
+		ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+		ByteArrayOutputStream records = new ByteArrayOutputStream();
+		DataOutputStream recordsOut = new DataOutputStream(records);
+
+		Vector<String> titles = new Vector<>(ecsMap.keySet());
+		titles.removeIf(title -> title==null);
+		titles.sort(null);
+		for (String title : titles)
+		{
+			recordBytes.reset();
+			writeECS(new DataOutputStream(recordBytes), title, ecsMap.get(title), strings);
+			recordsOut.writeInt(recordBytes.size());
+			recordBytes.writeTo(recordsOut);
+		}
+		recordsOut.flush();
+
+		try (FileOutputStream fileOut = new FileOutputStream(file))
+		{
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+
+			out.writeInt(strings.list.size());
+			for (String str : strings.list)
+			{
+				byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+				out.writeInt(bytes.length);
+				out.write(bytes);
+			}
+
+			out.writeInt(titles.size());
+			records.writeTo(out);
+			out.flush();
+			fileOut.getFD().sync();
+		}
+	}
+
+	private static void writeECS(DataOutputStream out, String title, EventCriteriaSet ecs, StringTable strings) throws IOException
+	{
+		out.writeInt(strings.indexOf(title));
+		out.writeInt(strings.indexOf(ecs.variableData()==null || !ecs.variableData().hasGroup() ? null : ecs.variableData().group));
+		out.writeInt(strings.indexOf(ecs.variableData()==null ? null : ecs.variableData().getEpisodeStr()));
+
+		int flags = 0;
+		if (ecs.stations    ()!=null) flags |= FLAG_STATIONS;
+		if (ecs.descriptions()!=null) flags |= FLAG_DESCRIPTIONS;
+		out.writeByte(flags);
+
+		if (ecs.descriptions()!=null)
+			writeDescriptionMaps(out, ecs.descriptions(), strings);
+
+		if (ecs.stations()!=null)
+		{
+			out.writeInt(ecs.stations().size());
+			for (StationData stationData : ecs.stations().values())
+			{
+				out.writeInt(strings.indexOf(stationData.name()));
+				out.writeByte(stationData.descriptions()!=null ? FLAG_DESCRIPTIONS : 0);
+				if (stationData.descriptions()!=null)
+					writeDescriptionMaps(out, stationData.descriptions(), strings);
+			}
+		}
+	}
+
+	private static void writeDescriptionMaps(DataOutputStream out, DescriptionMaps descriptions, StringTable strings) throws IOException
+	{
+		writeDescriptionMap(out, descriptions.standard, strings);
+		writeDescriptionMap(out, descriptions.extended, strings);
+	}
+
+	private static void writeDescriptionMap(DataOutputStream out, Map<String, DescriptionData> descMap, StringTable strings) throws IOException
+	{
+		out.writeInt(descMap.size());
+		for (Map.Entry<String, DescriptionData> entry : descMap.entrySet())
+		{
+			DescriptionData descData = entry.getValue();
+			out.writeInt(strings.indexOf(entry.getKey()));
+			out.writeByte(descData.operator.ordinal());
+			out.writeInt(strings.indexOf(descData.getEpisodeStr()));
+		}
+	}
+
+	static Map<String, EventCriteriaSet> read(File file) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE)
+				throw new IOException("File is too large");
+			ByteBuffer buffer = ByteBuffer.allocate((int) size);
+			while (buffer.hasRemaining())
+				if (channel.read(buffer) < 0)
+					throw new IOException("Unexpected end of file");
+			buffer.flip();
+
+			if (buffer.getInt()!=MAGIC)
+				throw new IOException("Unknown file format");
+			int version = buffer.getInt();
+			if (version!=VERSION)
+				throw new IOException("Unsupported version %d".formatted(version));
+
+			String[] strings = new String[getLength(buffer, 4)];
+			for (int i=0; i<strings.length; i++)
+			{
+				byte[] bytes = new byte[getLength(buffer, 1)];
+				buffer.get(bytes);
+				strings[i] = new String(bytes, StandardCharsets.UTF_8);
+			}
+
+			int ecsCount = buffer.getInt();
+			Map<String, EventCriteriaSet> ecsMap = new HashMap<>();
+			for (int i=0; i<ecsCount; i++)
+			{
+				int length = getLength(buffer, 1);
+				int end = buffer.position() + length;
+				EventCriteriaSet ecs = readECS(buffer, strings);
+				if (buffer.position()!=end)
+					throw new IOException("Corrupt record for \"%s\"".formatted(ecs.title()));
+				ecsMap.put(ecs.title(), ecs);
+			}
+			return ecsMap;
+		}
+		catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException | NullPointerException ex)
+		{
+			throw new IOException("File is truncated or corrupt", ex);
+		}
+	}
+
+	private static EventCriteriaSet readECS(ByteBuffer buffer, String[] strings)
+	{
+		String title = getString(buffer, strings);
+		String group = getString(buffer, strings);
+		EpisodeInfo episode = new EpisodeInfo();
+		episode.episodeStr = getString(buffer, strings);
+
+		int flags = buffer.get();
+		EventCriteriaSet ecs = EventCriteriaSet.create(title, group, episode, (flags & FLAG_STATIONS)!=0, (flags & FLAG_DESCRIPTIONS)!=0);
+
+		if (ecs.descriptions()!=null)
+			readDescriptionMaps(buffer, strings, ecs.descriptions());
+
+		if (ecs.stations()!=null)
+		{
+			int stationCount = buffer.getInt();
+			for (int i=0; i<stationCount; i++)
+			{
+				String name = getString(buffer, strings);
+				int stationFlags = buffer.get();
+				StationData stationData = StationData.create(name, (stationFlags & FLAG_DESCRIPTIONS)!=0);
+				if (stationData.descriptions()!=null)
+					readDescriptionMaps(buffer, strings, stationData.descriptions());
+				ecs.stations().put(name, stationData);
+			}
+		}
+
+		return ecs;
+	}
+
+	private static void readDescriptionMaps(ByteBuffer buffer, String[] strings, DescriptionMaps descriptions)
+	{
+		readDescriptionMap(buffer, strings, descriptions.standard);
+		readDescriptionMap(buffer, strings, descriptions.extended);
+	}
+
+	private static void readDescriptionMap(ByteBuffer buffer, String[] strings, Map<String, DescriptionData> descMap)
+	{
+		int count = buffer.getInt();
+		for (int i=0; i<count; i++)
+		{
+			String descStr = getString(buffer, strings);
+			TextOperator operator = TextOperator.values()[buffer.get()];
+			DescriptionData descData = new DescriptionData(null, operator);
+			descData.episodeStr = getString(buffer, strings);
+			descMap.put(descStr, descData);
+		}
+	}
+
+	/** reads a length or count and checks it against the remaining bytes, so a corrupt file can't allocate huge arrays */
+	private static int getLength(ByteBuffer buffer, int minBytesPerItem) throws IOException
+	{
+		int length = buffer.getInt();
+		if (length<0 || length > buffer.remaining()/minBytesPerItem)
+			throw new IOException("Invalid length %d at position %d".formatted(length, buffer.position()-4));
+		return length;
+	}
+
+	private static String getString(ByteBuffer buffer, String[] strings)
+	{
+		int index = buffer.getInt();
+		return index==NONE ? null : strings[index];
+	}
+
+	private static class StringTable
+	{
+		final Vector<String> list = new Vector<>();
+		final Map<String, Integer> indices = new HashMap<>();
+
+		int indexOf(String str)
+		{
+			if (str==null) return NONE;
+			return indices.computeIfAbsent(str, s -> { list.add(s); return list.size()-1; });
+		}
+	}
+}
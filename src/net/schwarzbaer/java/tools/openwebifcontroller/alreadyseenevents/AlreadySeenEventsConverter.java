@@ -0,0 +1,106 @@
+package net.schwarzbaer.java.tools.openwebifcontroller.alreadyseenevents;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+
+import net.schwarzbaer.java.lib.gui.ValueListOutput;
+import net.schwarzbaer.java.tools.openwebifcontroller.alreadyseenevents.AlreadySeenEvents.EventCriteriaSet;
+
+/**
+ * Converts Already Seen Events between the text format (import / export format) and the binary snapshot format
+ * and compares the load times of both formats.
+ */
+public class AlreadySeenEventsConverter
+{
+	public static int convertTextToBinary(File textFile, File binaryFile) throws IOException
+	{
+		Map<String, EventCriteriaSet> ecsMap = AlreadySeenEvents.readTextFile(textFile);
+		AlreadySeenEventsBinaryFormat.write(binaryFile, ecsMap);
+		return ecsMap.size();
+	}
+
+	public static int convertBinaryToText(File binaryFile, File textFile) throws IOException
+	{
+		Map<String, EventCriteriaSet> ecsMap = AlreadySeenEventsBinaryFormat.read(binaryFile);
+		AlreadySeenEvents.writeTextFile(textFile, ecsMap);
+		return ecsMap.size();
+	}
+
+	private interface Loader
+	{
+		Map<String, EventCriteriaSet> load() throws IOException;
+	}
+
+	/**
+	 * Benchmarks the current rule set of {@link AlreadySeenEvents}.
+	 * The snapshot file isn't used, because it could be older than the journal or could be in the other format.
+	 * @return report with load times of both formats
+	 */
+	public static String benchmarkLoadTime(int runs) throws IOException
+	{
+		return benchmarkLoadTime(AlreadySeenEvents.getInstance().copyRuleSet(), runs);
+	}
+
+	/**
+	 * Writes the given rule set to a temporary text file and a temporary binary file and loads each <code>runs</code> times.
+	 * @return report with load times of both formats
+	 */
+	static String benchmarkLoadTime(Map<String, EventCriteriaSet> ecsMap, int runs) throws IOException
+	{
+		runs = Math.max(1, runs);
+		File textFile   = File.createTempFile("AlreadySeenEvents", ".data");
+		File binaryFile = File.createTempFile("AlreadySeenEvents", ".bin");
+		textFile  .deleteOnExit();
+		binaryFile.deleteOnExit();
+
+		AlreadySeenEvents.writeTextFile(textFile, ecsMap);
+		AlreadySeenEventsBinaryFormat.write(binaryFile, ecsMap);
+
+		// first run of each format warms up JIT and file system cache
+		long[] textTimes_ns   = measure(runs+1, () -> AlreadySeenEvents.readTextFile(textFile));
+		long[] binaryTimes_ns = measure(runs+1, () -> AlreadySeenEventsBinaryFormat.read(binaryFile));
+
+		ValueListOutput out = new ValueListOutput();
+		out.add(0, "Criteria Sets", ecsMap.size());
+		out.add(0, "Runs"         , runs);
+		out.add(0, "Text Format");
+		addResults(out, textFile.length(), textTimes_ns);
+		out.add(0, "Binary Format");
+		addResults(out, binaryFile.length(), binaryTimes_ns);
+		out.add(0, "Speedup (median)", "%1.1fx", median(textTimes_ns) / (double) Math.max(1, median(binaryTimes_ns)));
+
+		textFile  .delete();
+		binaryFile.delete();
+		return out.generateOutput();
+	}
+
+	private static long[] measure(int runs, Loader loader) throws IOException
+	{
+		long[] times_ns = new long[runs];
+		for (int i=0; i<runs; i++)
+		{
+			long start = System.nanoTime();
+			loader.load();
+			times_ns[i] = System.nanoTime() - start;
+		}
+		// drop warm-up run
+		return Arrays.copyOfRange(times_ns, 1, runs);
+	}
+
+	private static void addResults(ValueListOutput out, long fileSize, long[] times_ns)
+	{
+		out.add(1, "File Size", "%1.1f kB", fileSize/1024.0);
+		out.add(1, "Min"      , "%1.2f ms", Arrays.stream(times_ns).min().orElse(0)/1e6);
+		out.add(1, "Median"   , "%1.2f ms", median(times_ns)/1e6);
+		out.add(1, "Max"      , "%1.2f ms", Arrays.stream(times_ns).max().orElse(0)/1e6);
+	}
+
+	private static long median(long[] values)
+	{
+		long[] sorted = values.clone();
+		Arrays.sort(sorted);
+		return sorted.length==0 ? 0 : sorted[sorted.length/2];
+	}
+}
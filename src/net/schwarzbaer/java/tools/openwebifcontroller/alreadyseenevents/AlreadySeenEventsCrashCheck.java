@@ -0,0 +1,220 @@
+package net.schwarzbaer.java.tools.openwebifcontroller.alreadyseenevents;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+
+import net.schwarzbaer.java.tools.openwebifcontroller.alreadyseenevents.AlreadySeenEvents.EventCriteriaSet;
+import net.schwarzbaer.java.tools.openwebifcontroller.alreadyseenevents.AlreadySeenEventsJournal.Record;
+import net.schwarzbaer.java.tools.openwebifcontroller.alreadyseenevents.AlreadySeenEventsJournal.RecordType;
+
+/**
+ * Self-contained check of the crash safety of {@link AlreadySeenEventsJournal} and its replay.
+ * It isn't used by the application and isn't visible outside of this package.
+ * It runs without arguments (<code>java ...alreadyseenevents.AlreadySeenEventsCrashCheck</code>) and exits with code 1, if a check fails.
+ * <ul>
+ * <li>The journal is truncated at every byte offset (crash while appending):
+ *     the replay has to stop cleanly after the last complete record.</li>
+ * <li>Every byte of the journal is corrupted once:
+ *     the replay has to stop at the damaged record and must not return anything else.</li>
+ * <li>A snapshot of every intermediate state (text and binary format) is combined with the complete journal
+ *     (crash after a compaction replaced the snapshot but before it cleared the journal):
+ *     the replay has to give the final state.</li>
+ * </ul>
+ */
+class AlreadySeenEventsCrashCheck
+{
+	private final Vector<String> failures = new Vector<>();
+	private int checkCount = 0;
+
+	private final Map<String, String> baseBlocks;
+	private final Vector<Record> records;
+	private final Vector<String> recordTitles;
+
+	public static void main(String[] args) throws IOException
+	{
+		AlreadySeenEventsCrashCheck check = new AlreadySeenEventsCrashCheck();
+		check.checkTruncatedJournal();
+		check.checkCorruptedJournal();
+		check.checkSnapshotThenJournal();
+
+		System.out.printf("%d checks, %d failed%n", check.checkCount, check.failures.size());
+		for (String failure : check.failures)
+			System.out.printf("   %s%n", failure);
+		if (!check.failures.isEmpty())
+			System.exit(1);
+	}
+
+	private AlreadySeenEventsCrashCheck() throws IOException
+	{
+		baseBlocks = AlreadySeenEvents.serializeAll(AlreadySeenEvents.parseBlocks(List.of(
+				ecsText("Tatort", "", "[Station]", "station = Das+Erste", "desc = Krimi"),
+				ecsText("News", "group = Info"),
+				ecsText("Münster-Krimi", "desc [contains] = M%C3%BCnster", "episodeD = Folge 7")
+		)));
+
+		records = new Vector<>();
+		recordTitles = new Vector<>();
+		addPut   ("Tatort", "", "[Station]", "station = Das+Erste", "desc = Krimi", "extdesc [contains] = Mord");
+		addPut   ("Neu – Serie", "episodeT = Staffel 1");
+		addDelete("News");
+		addPut   ("Tatort", "", "[Station]", "station = Das+Erste", "desc = Krimi", "episodeD = Folge 1000");
+		addPut   ("News", "group = Nachrichten");
+		addDelete("Münster-Krimi");
+	}
+
+	private static String ecsText(String title, String... lines)
+	{
+		StringBuilder sb = new StringBuilder();
+		sb.append("[EventCriteriaSet]\n");
+		sb.append("title = %s\n".formatted(URLEncoder.encode(title, StandardCharsets.UTF_8)));
+		for (String line : lines)
+			sb.append(line).append("\n");
+		sb.append("\n");
+		return sb.toString();
+	}
+
+	private void addPut(String title, String... lines) throws IOException
+	{
+		Map<String, String> blocks = AlreadySeenEvents.serializeAll(AlreadySeenEvents.parseBlocks(List.of(ecsText(title, lines))));
+		records.add(new Record(RecordType.put, blocks.get(title)));
+		recordTitles.add(title);
+	}
+
+	private void addDelete(String title)
+	{
+		records.add(new Record(RecordType.delete, URLEncoder.encode(title, StandardCharsets.UTF_8)));
+		recordTitles.add(title);
+	}
+
+	/** @return state after the first <code>count</code> records, computed without the replay code */
+	private Map<String, String> getExpectedState(int count)
+	{
+		Map<String, String> blocks = new HashMap<>(baseBlocks);
+		for (int i=0; i<count; i++)
+			if (records.get(i).type()==RecordType.put)
+				blocks.put(recordTitles.get(i), records.get(i).payload());
+			else
+				blocks.remove(recordTitles.get(i));
+		return blocks;
+	}
+
+	private Map<String, String> replay(Map<String, String> snapshotBlocks, List<Record> journalRecords) throws IOException
+	{
+		Map<String, EventCriteriaSet> ecsMap = AlreadySeenEvents.parseBlocks(snapshotBlocks.values());
+		AlreadySeenEvents.replayJournal(journalRecords, ecsMap);
+		return AlreadySeenEvents.serializeAll(ecsMap);
+	}
+
+	private void check(boolean condition, String format, Object... args)
+	{
+		checkCount++;
+		if (!condition)
+			failures.add(format.formatted(args));
+	}
+
+	/** @return journal file with all records and the end position (in bytes) of each record's payload and separator */
+	private File writeJournal(long[] payloadEnds, long[] recordEnds) throws IOException
+	{
+		File file = File.createTempFile("AlreadySeenEvents", ".journal");
+		file.deleteOnExit();
+		Files.delete(file.toPath());
+
+		AlreadySeenEventsJournal journal = new AlreadySeenEventsJournal(file);
+		int separatorLength = "%n".formatted().length();
+		for (int i=0; i<records.size(); i++)
+		{
+			if (!journal.append(List.of(records.get(i))))
+				throw new IOException("Can't write journal \"%s\"".formatted(file.getAbsolutePath()));
+			recordEnds [i] = file.length();
+			payloadEnds[i] = recordEnds[i] - separatorLength; // separator is ASCII -> 1 byte per char
+		}
+		return file;
+	}
+
+	private void checkTruncatedJournal() throws IOException
+	{
+		long[] payloadEnds = new long[records.size()];
+		long[] recordEnds  = new long[records.size()];
+		File file = writeJournal(payloadEnds, recordEnds);
+		byte[] bytes = Files.readAllBytes(file.toPath());
+
+		for (int offset=0; offset<=bytes.length; offset++)
+		{
+			Files.write(file.toPath(), Arrays.copyOf(bytes, offset));
+			AlreadySeenEventsJournal.ReadResult result = new AlreadySeenEventsJournal(file).read();
+
+			int expectedCount = 0;
+			boolean isAtRecordEnd = offset==0;
+			for (int i=0; i<records.size(); i++)
+			{
+				if (payloadEnds[i] <= offset) expectedCount = i+1;
+				if (payloadEnds[i] <= offset && offset <= recordEnds[i]) isAtRecordEnd = true;
+			}
+
+			check(result.records().size()==expectedCount, "truncated at %d: %d records read, %d expected", offset, result.records().size(), expectedCount);
+			check(result.isDamaged()==!isAtRecordEnd, "truncated at %d: journal %s as damaged", offset, result.isDamaged() ? "wrongly reported" : "not reported");
+			check(replay(baseBlocks, result.records()).equals(getExpectedState(expectedCount)), "truncated at %d: replay gives wrong state", offset);
+		}
+		Files.deleteIfExists(file.toPath());
+	}
+
+	private void checkCorruptedJournal() throws IOException
+	{
+		long[] payloadEnds = new long[records.size()];
+		long[] recordEnds  = new long[records.size()];
+		File file = writeJournal(payloadEnds, recordEnds);
+		byte[] bytes = Files.readAllBytes(file.toPath());
+
+		for (int offset=0; offset<bytes.length; offset++)
+			for (int mask : new int[] { 0x01, 0x80, 0xFF })
+			{
+				byte[] corrupted = bytes.clone();
+				corrupted[offset] ^= mask;
+				Files.write(file.toPath(), corrupted);
+				List<Record> result = new AlreadySeenEventsJournal(file).read().records();
+
+				int damagedRecord = 0;
+				while (damagedRecord<records.size() && recordEnds[damagedRecord] <= offset)
+					damagedRecord++;
+
+				// a corrupted separator may be skipped as white space, any other damage ends the replay
+				check(result.size() >= damagedRecord, "byte %d corrupted (0x%02X): only %d records read, %d expected", offset, mask, result.size(), damagedRecord);
+				check(result.equals(records.subList(0, Math.min(result.size(), records.size()))), "byte %d corrupted (0x%02X): records differ from written records", offset, mask);
+				check(replay(baseBlocks, result).equals(getExpectedState(result.size())), "byte %d corrupted (0x%02X): replay gives wrong state", offset, mask);
+			}
+		Files.deleteIfExists(file.toPath());
+	}
+
+	private void checkSnapshotThenJournal() throws IOException
+	{
+		Map<String, String> finalState = getExpectedState(records.size());
+		File textFile   = File.createTempFile("AlreadySeenEvents", ".data");
+		File binaryFile = File.createTempFile("AlreadySeenEvents", ".bin");
+		textFile  .deleteOnExit();
+		binaryFile.deleteOnExit();
+
+		for (int count=0; count<=records.size(); count++)
+		{
+			Map<String, EventCriteriaSet> snapshot = AlreadySeenEvents.parseBlocks(getExpectedState(count).values());
+
+			AlreadySeenEvents.writeTextFile(textFile, snapshot);
+			Map<String, EventCriteriaSet> fromText = AlreadySeenEvents.readTextFile(textFile);
+			check(replay(AlreadySeenEvents.serializeAll(fromText), records).equals(finalState), "text snapshot after %d records + complete journal: replay gives wrong state", count);
+
+			AlreadySeenEventsBinaryFormat.write(binaryFile, snapshot);
+			Map<String, EventCriteriaSet> fromBinary = AlreadySeenEventsBinaryFormat.read(binaryFile);
+			check(replay(AlreadySeenEvents.serializeAll(fromBinary), records).equals(finalState), "binary snapshot after %d records + complete journal: replay gives wrong state", count);
+		}
+
+		Files.deleteIfExists(textFile  .toPath());
+		Files.deleteIfExists(binaryFile.toPath());
+	}
+}
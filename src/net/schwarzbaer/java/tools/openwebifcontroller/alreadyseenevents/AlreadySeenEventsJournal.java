@@ -0,0 +1,157 @@
+package net.schwarzbaer.java.tools.openwebifcontroller.alreadyseenevents;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Vector;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of changed event criteria sets.<br>
+ * Each record is written as
+ * <pre>#&lt;type&gt; &lt;length&gt; &lt;crc32&gt;
+ *&lt;payload&gt;</pre>
+ * and synced to disk. A record, that was torn by a crash, fails its length or checksum test
+ * and ends the replay.
+ */
+class AlreadySeenEventsJournal
+{
+	enum RecordType { put, delete }
+
+	/** @param payload  text block of an event criteria set for {@link RecordType#put}, encoded title for {@link RecordType#delete} */
+	record Record(RecordType type, String payload) {}
+
+	record ReadResult(List<Record> records, boolean isDamaged) {}
+
+	private final File file;
+	private int recordCount;
+	private long size;
+
+	AlreadySeenEventsJournal(File file)
+	{
+		this.file = file;
+		recordCount = 0;
+		size = file==null ? 0 : file.length();
+	}
+
+	int  getRecordCount() { return recordCount; }
+	long getSize       () { return size; }
+
+	ReadResult read()
+	{
+		Vector<Record> records = new Vector<>();
+		if (file==null || !file.isFile())
+			return new ReadResult(records, false);
+
+		String content;
+		try
+		{
+			// a torn multi-byte character becomes a replacement character and fails the checksum of its record
+			content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+		}
+		catch (IOException ex)
+		{
+			System.err.printf("IOException while reading file \"%s\": %s%n", file.getAbsolutePath(), ex.getMessage());
+			return new ReadResult(records, true);
+		}
+
+		int pos = 0;
+		boolean isDamaged = false;
+		while (pos < content.length())
+		{
+			int headerEnd = content.indexOf('\n', pos);
+			if (headerEnd<0) { isDamaged = true; break; }
+
+			Record record = null;
+			String[] header = content.substring(pos, headerEnd).strip().split(" ");
+			if (header.length==3 && header[0].startsWith("#"))
+			{
+				try
+				{
+					RecordType type = RecordType.valueOf(header[0].substring(1));
+					int length = Integer.parseInt(header[1]);
+					long crc = Long.parseLong(header[2], 16);
+					int payloadStart = headerEnd+1;
+					int payloadEnd = payloadStart+length;
+					if (length>=0 && payloadEnd<=content.length())
+					{
+						String payload = content.substring(payloadStart, payloadEnd);
+						if (computeCRC(payload)==crc)
+						{
+							record = new Record(type, payload);
+							pos = payloadEnd;
+							while (pos<content.length() && (content.charAt(pos)=='\n' || content.charAt(pos)=='\r'))
+								pos++;
+						}
+					}
+				}
+				catch (IllegalArgumentException ex) {}
+			}
+
+			if (record==null) { isDamaged = true; break; }
+			records.add(record);
+		}
+
+		if (isDamaged)
+			System.err.printf("Journal \"%s\" is damaged after %d records. Remaining data will be ignored.%n", file.getAbsolutePath(), records.size());
+
+		recordCount = records.size();
+		size = file.length();
+		return new ReadResult(records, isDamaged);
+	}
+
+	boolean append(List<Record> records)
+	{
+		if (records.isEmpty()) return true;
+		if (file==null) return false;
+
+		StringBuilder sb = new StringBuilder();
+		for (Record record : records)
+		{
+			sb.append("#%s %d %08x%n".formatted(record.type.name(), record.payload.length(), computeCRC(record.payload)));
+			sb.append(record.payload);
+			sb.append("%n".formatted());
+		}
+		byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+
+		try (FileOutputStream out = new FileOutputStream(file, true))
+		{
+			out.write(bytes);
+			out.getFD().sync();
+		}
+		catch (IOException ex)
+		{
+			System.err.printf("IOException while appending to file \"%s\": %s%n", file.getAbsolutePath(), ex.getMessage());
+			return false;
+		}
+
+		recordCount += records.size();
+		size += bytes.length;
+		return true;
+	}
+
+	void clear()
+	{
+		if (file!=null && file.isFile())
+		{
+			try { Files.delete(file.toPath()); }
+			catch (IOException ex)
+			{
+				System.err.printf("IOException while deleting file \"%s\": %s%n", file.getAbsolutePath(), ex.getMessage());
+				return;
+			}
+		}
+		recordCount = 0;
+		size = 0;
+	}
+
+	private static long computeCRC(String payload)
+	{
+		CRC32 crc = new CRC32();
+		crc.update(payload.getBytes(StandardCharsets.UTF_8));
+		return crc.getValue();
+	}
+}
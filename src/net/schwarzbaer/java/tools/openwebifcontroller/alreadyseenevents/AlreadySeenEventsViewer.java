@@ -7,7 +7,9 @@ import java.awt.Dimension;
 import java.awt.Window;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
+import java.io.IOException;
 import java.util.Comparator;
+import java.util.Map;
 
 import javax.swing.Icon;
 import javax.swing.JOptionPane;
@@ -26,6 +28,7 @@ import net.schwarzbaer.java.lib.gui.TextAreaDialog;
 import net.schwarzbaer.java.lib.system.ClipboardTools;
 import net.schwarzbaer.java.tools.openwebifcontroller.OWCTools;
 import net.schwarzbaer.java.tools.openwebifcontroller.alreadyseenevents.AlreadySeenEvents.EpisodeInfo;
+import net.schwarzbaer.java.tools.openwebifcontroller.alreadyseenevents.AlreadySeenEvents.EventCriteriaSet;
 import net.schwarzbaer.java.tools.openwebifcontroller.alreadyseenevents.TreeNodeFactory.AbstractTreeNode;
 import net.schwarzbaer.java.tools.openwebifcontroller.alreadyseenevents.TreeNodeFactory.DescriptionChanger;
 import net.schwarzbaer.java.tools.openwebifcontroller.alreadyseenevents.TreeNodeFactory.DescriptionTreeNode;
@@ -73,6 +76,20 @@ public class AlreadySeenEventsViewer extends StandardDialog
 		
 		JToolBar toolBar = new JToolBar();
 		toolBar.setFloatable(false);
+		toolBar.add(OWCTools.createButton("Verdict Cache Statistics", true, e->{
+			TextAreaDialog.showText(this, "Verdict Cache Statistics", 400, 200, true, AlreadySeenEvents.getInstance().generateVerdictCacheReport());
+		}));
+		toolBar.add(OWCTools.createCheckBox("Binary Snapshot", AlreadySeenEvents.getInstance().isBinarySnapshot(), AlreadySeenEvents.getInstance()::setBinarySnapshot));
+		toolBar.add(OWCTools.createButton("Load Time Benchmark", true, e->{
+			// rule set is changed in GUI thread -> copy it here
+			Map<String, EventCriteriaSet> ruleSet = AlreadySeenEvents.getInstance().copyRuleSet();
+			String report = OWCTools.runWithProgressDialogRV(this, "Load Time Benchmark", pd->{
+				OWCTools.setIndeterminateProgressTask(pd, "Load text and binary format");
+				try { return AlreadySeenEventsConverter.benchmarkLoadTime(ruleSet, 10); }
+				catch (IOException ex) { return "IOException while running benchmark: %s".formatted(ex.getMessage()); }
+			});
+			TextAreaDialog.showText(this, "Load Time Benchmark", 400, 300, true, report);
+		}));
 		
 		JPanel contentPane = new JPanel(new BorderLayout());
 		contentPane.add(toolBar, BorderLayout.PAGE_END);
@@ -110,6 +127,7 @@ public class AlreadySeenEventsViewer extends StandardDialog
 		if (result!=null)
 		{
 			selected.episodeInfo.episodeStr = result;
+			selected.treeNode.markECSAsChanged();
 			selected.treeNode.updateTitle();
 			treeModel.fireTreeNodeUpdate(selected.treeNode);
 			tree.repaint();
@@ -126,6 +144,7 @@ public class AlreadySeenEventsViewer extends StandardDialog
 			DescriptionChanger.Response response = selected.descriptionTreeNode.description.setText(newDesc);
 			if (response.success())
 			{
+				selected.descriptionTreeNode.markECSAsChanged();
 				selected.descriptionTreeNode.updateTitle();
 				treeModel.fireTreeNodeUpdate(selected.descriptionTreeNode);
 				tree.repaint();
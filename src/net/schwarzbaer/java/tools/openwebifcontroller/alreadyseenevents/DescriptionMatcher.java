@@ -0,0 +1,134 @@
+package net.schwarzbaer.java.tools.openwebifcontroller.alreadyseenevents;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import net.schwarzbaer.java.tools.openwebifcontroller.alreadyseenevents.AlreadySeenEvents.DescriptionData;
+
+/**
+ * Compiled form of a description map of {@link AlreadySeenEvents}:
+ * a hash set for {@link AlreadySeenEvents.TextOperator#Equals Equals} rules,
+ * a prefix trie for {@link AlreadySeenEvents.TextOperator#StartsWith StartsWith} rules and
+ * an Aho-Corasick automaton for {@link AlreadySeenEvents.TextOperator#Contains Contains} rules.<br>
+ * As before, the longest matching rule wins.
+ */
+class DescriptionMatcher
+{
+	private final Set<String> equalsRules;
+	private final Node startsWithRules;
+	private final Node containsRules;
+
+	DescriptionMatcher(Map<String, DescriptionData> descriptions)
+	{
+		equalsRules = new HashSet<>();
+		startsWithRules = new Node();
+		containsRules = new Node();
+
+		descriptions.forEach((descStr, descData) -> {
+			if (descStr==null || descData==null) return;
+			switch (descData.operator)
+			{
+			case Equals    : equalsRules.add(descStr); break;
+			case StartsWith: startsWithRules.add(descStr); break;
+			case Contains  : containsRules.add(descStr); break;
+			}
+		});
+
+		buildFailureLinks(containsRules);
+	}
+
+	/** @return description text of the longest matching rule or <code>null</code> if no rule matches */
+	String findLongestMatch(String description)
+	{
+		// an Equals rule is as long as the description itself -> no other rule could be longer
+		if (equalsRules.contains(description))
+			return description;
+
+		String prefix    = findLongestPrefix(description);
+		String substring = findLongestSubstring(description);
+
+		if (prefix   ==null) return substring;
+		if (substring==null) return prefix;
+		return substring.length() > prefix.length() ? substring : prefix;
+	}
+
+	private String findLongestPrefix(String description)
+	{
+		Node node = startsWithRules;
+		String longest = node.rule;
+		for (int i=0; i<description.length() && node!=null; i++)
+		{
+			node = node.children.get(description.charAt(i));
+			if (node!=null && node.rule!=null)
+				longest = node.rule;
+		}
+		return longest;
+	}
+
+	private String findLongestSubstring(String description)
+	{
+		Node root = containsRules;
+		Node node = root;
+		String longest = root.longestOutput;
+		for (int i=0; i<description.length(); i++)
+		{
+			char ch = description.charAt(i);
+			while (node!=root && !node.children.containsKey(ch))
+				node = node.failure;
+			node = node.children.getOrDefault(ch, root);
+
+			String output = node.longestOutput;
+			if (output!=null && (longest==null || output.length() > longest.length()))
+				longest = output;
+		}
+		return longest;
+	}
+
+	private static void buildFailureLinks(Node root)
+	{
+		root.failure = null;
+		root.longestOutput = root.rule;
+
+		ArrayDeque<Node> queue = new ArrayDeque<>();
+		for (Node child : root.children.values())
+		{
+			child.failure = root;
+			child.longestOutput = child.rule!=null ? child.rule : root.longestOutput;
+			queue.add(child);
+		}
+
+		while (!queue.isEmpty())
+		{
+			Node node = queue.poll();
+			node.children.forEach((ch, child) -> {
+				Node failure = node.failure;
+				while (failure!=null && !failure.children.containsKey(ch))
+					failure = failure.failure;
+				child.failure = failure==null ? root : failure.children.get(ch);
+				// the rule of this node is longer than any rule ending at a suffix of it
+				child.longestOutput = child.rule!=null ? child.rule : child.failure.longestOutput;
+				queue.add(child);
+			});
+		}
+	}
+
+	private static class Node
+	{
+		final Map<Character, Node> children = new HashMap<>();
+		String rule = null;
+		Node failure = null;
+		/** longest rule, that ends at this node or at one of its suffixes */
+		String longestOutput = null;
+
+		void add(String rule)
+		{
+			Node node = this;
+			for (int i=0; i<rule.length(); i++)
+				node = node.children.computeIfAbsent(rule.charAt(i), ch -> new Node());
+			node.rule = rule;
+		}
+	}
+}
@@ -79,7 +79,8 @@ class TreeContextMenu extends ContextMenu
 			JCheckBoxMenuItem cmi = OWCTools.createCheckBoxMenuItem(op.title, false, b -> {
 				if (clicked.descriptionTreeNode!=null)
 				{
-					clicked.descriptionTreeNode.description.getData().operator = op;
+					clicked.descriptionTreeNode.description.setOperator(op);
+					clicked.descriptionTreeNode.markECSAsChanged();
 					clicked.descriptionTreeNode.updateTitle();
 					this.getCurrentTreeModel.get().fireTreeNodeUpdate(clicked.descriptionTreeNode);
 					this.tree.repaint();
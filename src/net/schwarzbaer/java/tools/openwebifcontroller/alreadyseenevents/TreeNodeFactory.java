@@ -135,6 +135,18 @@ class TreeNodeFactory
 				action.accept(childNode);
 		}
 		
+		/** marks the event criteria set, this node belongs to, as changed -> it will be written by the next {@link AlreadySeenEvents#writeToFileAndNotify(AlreadySeenEvents.ChangeListener.ChangeType)} */
+		void markECSAsChanged()
+		{
+			for (AbstractTreeNode node = this; node!=null; node = node.parent)
+				if (node instanceof EventCriteriaSetTreeNode ecsNode)
+				{
+					if (ecsNode.ecs!=null)
+						AlreadySeenEvents.getInstance().markAsChanged(ecsNode.ecs.title());
+					return;
+				}
+		}
+		
 		static Object[] getPath(AbstractTreeNode treeNode)
 		{
 			Vector<AbstractTreeNode> path = new Vector<>();
@@ -656,7 +668,15 @@ class TreeNodeFactory
 		
 		boolean removeFromMap()
 		{
-			return descMap.remove(descText)!=null;
+			boolean removed = descMap.remove(descText)!=null;
+			AlreadySeenEvents.getInstance().descriptionsChanged(descMap);
+			return removed;
+		}
+
+		void setOperator(TextOperator operator)
+		{
+			descData.operator = operator;
+			AlreadySeenEvents.getInstance().descriptionsChanged(descMap);
 		}
 
 		DescriptionData getData()
@@ -700,6 +720,7 @@ class TreeNodeFactory
 			descMap.remove( this.descText );
 			this.descText = descText;
 			descMap.put( this.descText, descData );
+			AlreadySeenEvents.getInstance().descriptionsChanged(descMap);
 			
 			return new Response(true);
 		}
@@ -63,6 +63,7 @@ class ViewerTreeModel implements TreeModel
 			throw new IllegalArgumentException();
 		
 		AlreadySeenEvents.getInstance().createDesc(descriptions, description);
+		parent.markECSAsChanged();
 		DescriptionChanger descChanger = new DescriptionChanger(description, descriptions);
 		
 		NewNode<DescriptionTreeNode> newNode = parent.createDescNode(descChanger, isExtDesc);
@@ -149,6 +150,7 @@ class ViewerTreeModel implements TreeModel
 			VariableECSData variableData = ecsNode.ecs.variableData();
 			if (variableData == null) return;
 			variableData.group = newGroupName;
+			ecsNode.markECSAsChanged();
 		} );
 		fireAllSubNodesUpdate(groupNode);
 	}
@@ -173,6 +175,7 @@ class ViewerTreeModel implements TreeModel
 		}
 		
 		node.ecs.variableData().group = groupName;
+		node.markECSAsChanged();
 		NewNode<EventCriteriaSetTreeNode> newNode = groupNode.createECSNode( node.ecs );
 		fireTreeNodeInserted(groupNode, newNode.node(), newNode.index());
 	}
@@ -187,6 +190,7 @@ class ViewerTreeModel implements TreeModel
 			fireTreeNodeRemoved(groupNode, node, oldNodeIndex);
 			
 			node.ecs.variableData().group = null;
+			node.markECSAsChanged();
 			NewNode<EventCriteriaSetTreeNode> newNode = treeRoot.createECSNode( node.ecs );
 			fireTreeNodeInserted(treeRoot, newNode.node(), newNode.index());
 		}
@@ -235,6 +239,7 @@ class ViewerTreeModel implements TreeModel
 		{
 			if (parent.ecs.stations()!=null)
 				parent.ecs.stations().remove( treeNode.station );
+			parent.markECSAsChanged();
 			
 			int index = parent.removeNode(treeNode);
 			if (index >= 0)
@@ -254,6 +259,7 @@ class ViewerTreeModel implements TreeModel
 		if (parent!=null)
 		{
 			treeNode.description.removeFromMap();
+			treeNode.markECSAsChanged();
 			
 			int index = parent.removeNode(treeNode);
 			if (index >= 0)
@@ -3,8 +3,10 @@ package net.schwarzbaer.java.tools.openwebifcontroller.bouquetsnstations;
 import java.awt.Color;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Vector;
@@ -116,16 +118,27 @@ class BSTreeNode<ParentType extends TreeNode, ChildType extends TreeNode> implem
 			icon = TreeIcons.Folder.getIcon();
 		}
 
-		void updateStationNodes(StationID stationID, DefaultTreeModel treeModel, Consumer<Vector<BSTreeNode.StationNode>> doWithStationNodes) {
-			Vector<StationNode> stations = this.stations.get(stationID);
-			if (stations==null || stations.isEmpty())
-				return;
-			
-			if (doWithStationNodes!=null)
-				doWithStationNodes.accept(stations);
+		/** has to be called in the EDT, fires one model event per parent node of changed station nodes */
+		void updateStationNodes(Collection<StationID> stationIDs, DefaultTreeModel treeModel, Consumer<Vector<BSTreeNode.StationNode>> doWithStationNodes) {
+			LinkedHashMap<TreeNode,Vector<StationNode>> changedNodes = new LinkedHashMap<>();
+			for (StationID stationID : stationIDs) {
+				Vector<StationNode> stations = this.stations.get(stationID);
+				if (stations==null || stations.isEmpty())
+					continue;
+				
+				if (doWithStationNodes!=null)
+					doWithStationNodes.accept(stations);
+				
+				for (StationNode stationNode : stations)
+					changedNodes.computeIfAbsent(stationNode.getParent(), parent -> new Vector<>()).add(stationNode);
+			}
 			
 			if (treeModel!=null)
-				SwingUtilities.invokeLater(() -> stations.forEach(treeModel::nodeChanged));
+				changedNodes.forEach((parent,stations) -> {
+					int[] childIndices = stations.stream().mapToInt(parent::getIndex).filter(i -> i>=0).sorted().distinct().toArray();
+					if (childIndices.length>0)
+						treeModel.nodesChanged(parent, childIndices);
+				});
 		}
 
 		void updateAllStationNodes(DefaultTreeModel treeModel, BiPredicate<StationID, Vector<BSTreeNode.StationNode>> doWithStationNodes)
@@ -254,7 +267,6 @@ class BSTreeNode<ParentType extends TreeNode, ChildType extends TreeNode> implem
 		final Bouquet.SubService subservice;
 		final BouquetNode bouquetNode;
 		Vector<EPGevent> epgEvents;
-		BufferedImage piconImage;
 		Boolean isServicePlayable;
 		boolean isCurrentlyPlayed;
 	
@@ -292,17 +304,16 @@ class BSTreeNode<ParentType extends TreeNode, ChildType extends TreeNode> implem
 			return subservice.getStationID();
 		}
 	
-		void setPicon(BufferedImage piconImage) {
-			setPicon(piconImage, getIcon(piconImage));
-		}
-
-		void setPicon(BufferedImage piconImage, Icon icon) {
-			this.piconImage = piconImage;
+		void setPicon(Icon icon) {
 			this.icon = icon;
 		}
+		
+		BufferedImage getPiconImage() {
+			return isMarker() ? null : PiconLoader.getInstance().getPiconFromMemory(getStationID());
+		}
 	
-		static Icon getIcon(BufferedImage piconImage) {
-			return BouquetsNStations.getScaleIcon(piconImage, ROW_HEIGHT, Color.BLACK);
+		static Icon getIcon(StationID stationID) {
+			return PiconLoader.getInstance().getPiconIconFromMemory(stationID, ROW_HEIGHT, Color.BLACK);
 		}
 	}
 }
\ No newline at end of file
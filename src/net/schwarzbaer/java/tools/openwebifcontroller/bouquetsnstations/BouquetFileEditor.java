@@ -7,6 +7,7 @@ import java.awt.Graphics;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.event.FocusEvent;
 import java.awt.event.FocusListener;
 import java.awt.event.KeyAdapter;
@@ -57,7 +58,6 @@ import javax.swing.UnsupportedLookAndFeelException;
 import net.schwarzbaer.java.lib.gui.ContextMenu;
 import net.schwarzbaer.java.lib.gui.FileChooser;
 import net.schwarzbaer.java.lib.gui.GeneralIcons.GrayCommandIcons;
-import net.schwarzbaer.java.lib.gui.ImageView;
 import net.schwarzbaer.java.lib.gui.KeyShortCut;
 import net.schwarzbaer.java.lib.gui.ProgressDialog;
 import net.schwarzbaer.java.lib.gui.ScrollPosition;
@@ -69,6 +69,7 @@ import net.schwarzbaer.java.lib.openwebif.OpenWebifTools;
 import net.schwarzbaer.java.lib.openwebif.OpenWebifTools.BouquetData;
 import net.schwarzbaer.java.lib.openwebif.StationID;
 import net.schwarzbaer.java.lib.system.Settings.DefaultAppSettings.SplitPaneDividersDefinition;
+import net.schwarzbaer.java.tools.openwebifcontroller.EDTCoalescer;
 import net.schwarzbaer.java.tools.openwebifcontroller.ListenerController;
 import net.schwarzbaer.java.tools.openwebifcontroller.OWCTools;
 import net.schwarzbaer.java.tools.openwebifcontroller.OpenWebifController;
@@ -97,7 +98,7 @@ public class BouquetFileEditor
 	private final ContentPane contentPane;
 	private final MenuBar menuBar;
 	private final ListenerController listenerController;
-	private final LocalPiconCache localPiconCache;
+	private final EDTCoalescer<String,StationID> piconUpdateBatcher;
 
 	private BouquetFileEditor(boolean startedStandAlone, OpenWebifController main, BouquetData bouquetData, Consumer<BouquetFileEditor> updateBouquetData)
 	{
@@ -105,9 +106,7 @@ public class BouquetFileEditor
 		this.updateBouquetData = updateBouquetData!=null ? updateBouquetData : BouquetFileEditor::updateBouquetData;
 		this.bouquetFileData = null;
 		
-		localPiconCache = new LocalPiconCache();
-		
-		contentPane = new ContentPane(main, localPiconCache);
+		contentPane = new ContentPane(main);
 		menuBar = new MenuBar();
 		
 		mainWindow = OpenWebifController.createMainWindow("Bouquet File Editor", !startedStandAlone);
@@ -131,11 +130,13 @@ public class BouquetFileEditor
 		setData(this.bouquetData);
 		contentPane.bouquetFilePanel.setData(this.bouquetFileData);
 		
+		piconUpdateBatcher = new EDTCoalescer<>(PiconLoader.UPDATE_BATCH_WINDOW_ms, stationIDs -> {
+			contentPane.bouquetDataPanel.tableModel.updatePiconColumn();
+			contentPane.bouquetFilePanel.tableModel.updatePiconColumn();
+		});
 		listenerController.addListener(PiconLoader.getInstance(), new PiconLoader.Listener() {
 			@Override public void updatePicon(StationID stationID, BufferedImage piconImage) {
-				localPiconCache.set(stationID, piconImage);
-				contentPane.bouquetDataPanel.tableModel.updatePiconColumn();
-				contentPane.bouquetFilePanel.tableModel.updatePiconColumn();
+				piconUpdateBatcher.post(stationID.toIDStr(), stationID);
 			}
 			@Override public void showMessage(String msg, int duration_ms) {
 				// TODO Auto-generated method stub
@@ -235,7 +236,6 @@ public class BouquetFileEditor
 			
 			viewMenu.add(OWCTools.createMenuItem("Clear Picons Cache", GrayCommandIcons.IconGroup.Delete, ev -> {
 				PiconLoader.getInstance().clearPiconCache();
-				localPiconCache.clear();
 				contentPane.repaint();
 			}));
 			
@@ -295,59 +295,16 @@ public class BouquetFileEditor
 		}
 	}
 	
-	private static class LocalPiconCache
+	private static class PiconRenderer<RowType, ColumnIDType> extends Tables.GraphicRendererComponent<BufferedImage> implements Tables.GeneralizedTableCellRenderer2.ExtraRenderer<RowType, ColumnIDType>
 	{
+		private static final long serialVersionUID = -4899151173810183590L;
 		// 330 x 198
 		private static final int RAW_IMAGE_HEIGHT = 198;
 		private static final int RAW_IMAGE_WIDTH  = 330;
 		static final int PICON_HEIGHT = 30;
 		static final int PICON_WIDTH  = PICON_HEIGHT * RAW_IMAGE_WIDTH / RAW_IMAGE_HEIGHT;
-		
-		private final Map<String,BufferedImage> cache = new HashMap<>();
-
-		void clear()
-		{
-			cache.clear();
-		}
-
-		BufferedImage get(StationID stationID)
-		{
-			return stationID==null ? null : cache.get(stationID.toIDStr());
-		}
-
-		void set(StationID stationID, BufferedImage piconImage)
-		{
-			if (stationID==null) return;
-			String key = stationID.toIDStr();
-			
-			if (piconImage==null)
-				cache.remove(key);
-			else
-			{
-				//BufferedImage scaledImg = ImageTools.scale(piconImage, PICON_WIDTH, PICON_HEIGHT);
-				BufferedImage scaledImg = ImageView.computeScaledImageByAreaSampling(setBgColor(piconImage, Color.BLACK), PICON_WIDTH, PICON_HEIGHT, true);
-				cache.put(key, scaledImg);
-			}
-		}
-
-		private static BufferedImage setBgColor(BufferedImage image, Color bgColor)
-		{
-			if (image==null || bgColor==null)
-				return image;
-			
-			BufferedImage newImage = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
-			Graphics g = newImage.getGraphics();
-			g.drawImage(image, 0, 0, bgColor, null);
-			
-			return newImage;
-		}
-	}
-	
-	private static class PiconRenderer<RowType, ColumnIDType> extends Tables.GraphicRendererComponent<BufferedImage> implements Tables.GeneralizedTableCellRenderer2.ExtraRenderer<RowType, ColumnIDType>
-	{
-		private static final long serialVersionUID = -4899151173810183590L;
-		static final int TABLE_ROW_HEIGHT   = LocalPiconCache.PICON_HEIGHT + 2*2 + 1;
-		static final int TABLE_COLUMN_WIDTH = LocalPiconCache.PICON_WIDTH  + 2*2 + 1;
+		static final int TABLE_ROW_HEIGHT   = PICON_HEIGHT + 2*2 + 1;
+		static final int TABLE_COLUMN_WIDTH = PICON_WIDTH  + 2*2 + 1;
 		
 		private BufferedImage picon;
 
@@ -387,11 +344,11 @@ public class BouquetFileEditor
 		final BouquetDataPanel bouquetDataPanel;
 		final BouquetFilePanel bouquetFilePanel;
 
-		ContentPane(OpenWebifController main, LocalPiconCache localPiconCache)
+		ContentPane(OpenWebifController main)
 		{
 			super(JSplitPane.HORIZONTAL_SPLIT,true);
-			setLeftComponent (bouquetDataPanel = new BouquetDataPanel(main, localPiconCache));
-			setRightComponent(bouquetFilePanel = new BouquetFilePanel(main, localPiconCache));
+			setLeftComponent (bouquetDataPanel = new BouquetDataPanel(main));
+			setRightComponent(bouquetFilePanel = new BouquetFilePanel(main));
 			setResizeWeight(0.5);
 			bouquetDataPanel.setOtherPanel(bouquetFilePanel);
 			bouquetFilePanel.setOtherPanel(bouquetDataPanel);
@@ -434,13 +391,13 @@ public class BouquetFileEditor
 		}
 		
 		final OpenWebifController main;
-		final LocalPiconCache localPiconCache;
 		final JPanel northPanel;
 		final JSplitPane tableTextAreaPanel;
 		final JTable table;
 		final TableModelType tableModel;
 		final Tables.GeneralizedTableCellRenderer2<RowType, ColumnID, TableModelType> tableCellRenderer;
 		final JScrollPane tableScrollPane;
+		final VisibleStationsTracker visibleStationsTracker;
 		final JTextArea textArea;
 		final JScrollPane textareaScrollPane;
 		
@@ -451,7 +408,6 @@ public class BouquetFileEditor
 		
 		AbstractPanel(
 				OpenWebifController main,
-				LocalPiconCache localPiconCache,
 				String borderTitle,
 				SelectionMode tableSelectionMode,
 				TableModelConstructor<TableModelType,ThisType> tableModelConstructor,
@@ -464,7 +420,6 @@ public class BouquetFileEditor
 		{
 			super(new BorderLayout(3, 3));
 			this.main = main;
-			this.localPiconCache = localPiconCache;
 			setBorder(BorderFactory.createTitledBorder(borderTitle));
 			
 			Objects.requireNonNull( tableSelectionMode );
@@ -480,6 +435,8 @@ public class BouquetFileEditor
 			defaultRowHeight = table.getRowHeight();
 			tableScrollPane = new JScrollPane(table);
 			//tableScrollPane.setPreferredSize(new Dimension(1000,500));
+			visibleStationsTracker = new VisibleStationsTracker(tableScrollPane, this::getVisibleStationIDs, null);
+			tableModel.addTableModelListener(e -> visibleStationsTracker.scheduleUpdate());
 			table.setRowSorter(new Tables.SimplifiedRowSorter(tableModel));
 			table.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
 			table.setColumnSelectionAllowed(false);
@@ -552,6 +509,7 @@ public class BouquetFileEditor
 			if (baseURL==null) return;
 			PiconLoader piconLoader = PiconLoader.getInstance();
 			piconLoader.setBaseURL(baseURL);
+			visibleStationsTracker.update();
 			tableModel.forEachRow(row -> {
 				StationID stationID = getStationIDFromRow(row);
 				if (stationID!=null)
@@ -559,11 +517,37 @@ public class BouquetFileEditor
 			});
 		}
 		
+		Vector<StationID> getVisibleStationIDs()
+		{
+			Vector<StationID> stationIDs = new Vector<>();
+			forEachVisibleRow(row -> {
+				StationID stationID = getStationIDFromRow(row);
+				if (stationID!=null)
+					stationIDs.add(stationID);
+			});
+			return stationIDs;
+		}
+		
+		void forEachVisibleRow(Consumer<RowType> action)
+		{
+			Rectangle visibleRect = table.getVisibleRect();
+			int firstRowV = table.rowAtPoint(new Point(0, visibleRect.y));
+			int lastRowV  = table.rowAtPoint(new Point(0, visibleRect.y + visibleRect.height - 1));
+			if (firstRowV<0) return;
+			if (lastRowV <0) lastRowV = table.getRowCount()-1;
+			for (int rowV=firstRowV; rowV<=lastRowV; rowV++)
+			{
+				int rowM = table.convertRowIndexToModel(rowV);
+				RowType row = rowM<0 ? null : tableModel.getRow(rowM);
+				if (row!=null) action.accept(row);
+			}
+		}
+		
 		BufferedImage getCachedPicon(RowType row)
 		{
 			StationID stationID = getStationIDFromRow(row);
 			if (stationID==null) return null;
-			return localPiconCache.get(stationID);
+			return PiconLoader.getInstance().getScaledPiconFromMemory(stationID, PiconRenderer.PICON_WIDTH, PiconRenderer.PICON_HEIGHT, Color.BLACK);
 		}
 		
 		String getStationName(StationID stationID)
@@ -687,10 +671,10 @@ public class BouquetFileEditor
 		private BouquetFilePanel bouquetFilePanel;
 		private Bouquet selectedBouquet;
 		
-		BouquetDataPanel(OpenWebifController main, LocalPiconCache localPiconCache)
+		BouquetDataPanel(OpenWebifController main)
 		{
 			super(
-					main, localPiconCache,
+					main,
 					"Bouquet Data in STB",
 					SelectionMode.SINGLE_SELECTION,
 					BouquetTableModel::new,
@@ -959,10 +943,10 @@ public class BouquetFileEditor
 		private final JLabel labName;
 		private BouquetDataPanel bouquetDataPanel;
 
-		BouquetFilePanel(OpenWebifController main, LocalPiconCache localPiconCache)
+		BouquetFilePanel(OpenWebifController main)
 		{
 			super(
-					main, localPiconCache,
+					main,
 					"Bouquet File",
 					SelectionMode.SINGLE_SELECTION,
 					BouquetFileTableModel::new,
@@ -5,6 +5,7 @@ import java.awt.Color;
 import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.Graphics;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -13,7 +14,9 @@ import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.lang.reflect.InvocationTargetException;
 import java.nio.charset.StandardCharsets;
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
 import java.util.Vector;
 import java.util.function.Consumer;
@@ -31,6 +34,8 @@ import javax.swing.JSplitPane;
 import javax.swing.JTabbedPane;
 import javax.swing.JTree;
 import javax.swing.SwingUtilities;
+import javax.swing.event.TreeExpansionEvent;
+import javax.swing.event.TreeExpansionListener;
 import javax.swing.tree.DefaultTreeCellRenderer;
 import javax.swing.tree.DefaultTreeModel;
 import javax.swing.tree.TreePath;
@@ -50,6 +55,7 @@ import net.schwarzbaer.java.lib.openwebif.OpenWebifTools.BouquetData;
 import net.schwarzbaer.java.lib.openwebif.OpenWebifTools.CurrentStation;
 import net.schwarzbaer.java.lib.openwebif.StationID;
 import net.schwarzbaer.java.lib.system.Settings.DefaultAppSettings.SplitPaneDividersDefinition;
+import net.schwarzbaer.java.tools.openwebifcontroller.EDTCoalescer;
 import net.schwarzbaer.java.tools.openwebifcontroller.OWCTools;
 import net.schwarzbaer.java.tools.openwebifcontroller.OpenWebifController;
 import net.schwarzbaer.java.tools.openwebifcontroller.OpenWebifController.AppSettings;
@@ -67,6 +73,9 @@ public class BouquetsNStations extends JPanel
 	private final SingleStationEPGPanel singleStationEPGPanel;
 	private final FileChooser m3uFileChooser;
 	private final FileChooser txtFileChooser;
+	private final FileChooser zipFileChooser;
+	private final VisibleStationsTracker visibleStationsTracker;
+	private final EDTCoalescer<String,StationID> piconUpdateBatcher;
 	private final OpenWebifController.Updater periodicUpdater10s;
 	public  final BouquetsNStationsUpdateNotifier bouquetsNStationsUpdateNotifier;
 	
@@ -97,6 +106,7 @@ public class BouquetsNStations extends JPanel
 		
 		m3uFileChooser = new FileChooser("Playlist", "m3u");
 		txtFileChooser = new FileChooser("Text-File", "txt");
+		zipFileChooser = new FileChooser("Picon Archive", "zip");
 		
 		bsTree = new JTree(bsTreeModel);
 		bsTree.setCellRenderer(new BSTreeCellRenderer());
@@ -105,6 +115,25 @@ public class BouquetsNStations extends JPanel
 		JScrollPane treeScrollPane = new JScrollPane(bsTree);
 		treeScrollPane.setPreferredSize(new Dimension(300,500));
 		
+		piconUpdateBatcher = new EDTCoalescer<>(PiconLoader.UPDATE_BATCH_WINDOW_ms, this::updateTreeNodeIcons);
+		visibleStationsTracker = new VisibleStationsTracker(
+				treeScrollPane,
+				() -> getVisibleStationNodes().stream().map(BSTreeNode.StationNode::getStationID).toList(),
+				this::updateVisibleTreeNodeIcons
+		);
+		bsTree.addTreeExpansionListener(new TreeExpansionListener() {
+			@Override public void treeExpanded(TreeExpansionEvent event) {}
+			@Override public void treeCollapsed(TreeExpansionEvent event) {
+				Vector<StationID> stationIDs = new Vector<>();
+				Object obj = event.getPath().getLastPathComponent();
+				if (obj instanceof BSTreeNode.BouquetNode bouquetNode)
+					bouquetNode.forEachStation(stationNode -> stationIDs.add(stationNode.getStationID()));
+				else if (obj instanceof BSTreeNode.TransponderNode transponderNode)
+					transponderNode.forEachChild(stationNode -> stationIDs.add(stationNode.getStationID()));
+				PiconLoader.getInstance().deferTasks(stationIDs);
+			}
+		});
+		
 		statusLine = new StatusOut();
 		
 		valuePanel = new ValuePanel(this.main::getBaseURL);
@@ -178,7 +207,7 @@ public class BouquetsNStations extends JPanel
 		
 		this.main.listenerController.addListener(PiconLoader.getInstance(), new PiconLoader.Listener() {
 			@Override public void updatePicon(StationID stationID, BufferedImage piconImage) {
-				updateTreeNodeIcons(stationID, piconImage);
+				piconUpdateBatcher.post(stationID.toIDStr(), stationID);
 			}
 			@Override public void showMessage(String msg, int duration_ms) {
 				statusLine.showMessage(msg, duration_ms);
@@ -196,29 +225,62 @@ public class BouquetsNStations extends JPanel
 		return StationID.isSameTransponder(transponderListBaseStation, stationID);
 	}
 	
-	private void updateTreeNodeIcons(StationID stationID, BufferedImage piconImage)
+	private void updateTreeNodeIcons(Collection<StationID> stationIDs)
 	{
 		if (bsTreeModel!=null && bsTreeRoot!=null)
+			bsTreeRoot.updateStationNodes(stationIDs, bsTreeModel, stations -> {
+				Icon icon = BSTreeNode.StationNode.getIcon(stations.firstElement().getStationID());
+				stations.forEach(treeNode -> treeNode.setPicon(icon));
+			});
+		valuePanel.updatePicon(stationIDs);
+	}
+	
+	private Vector<BSTreeNode.StationNode> getVisibleStationNodes()
+	{
+		Vector<BSTreeNode.StationNode> stationNodes = new Vector<>();
+		Rectangle visibleRect = bsTree.getVisibleRect();
+		if (visibleRect.isEmpty() || bsTree.getRowCount()==0)
+			return stationNodes;
+		
+		int firstRow = bsTree.getClosestRowForLocation(visibleRect.x, visibleRect.y);
+		int lastRow  = bsTree.getClosestRowForLocation(visibleRect.x, visibleRect.y+visibleRect.height-1);
+		for (int row=Math.max(0,firstRow); row<=lastRow; row++)
 		{
-			Icon icon = BSTreeNode.StationNode.getIcon(piconImage);
-			bsTreeRoot.updateStationNodes(stationID, bsTreeModel, stations -> stations.forEach(treeNode -> treeNode.setPicon(piconImage, icon)));
+			TreePath path = bsTree.getPathForRow(row);
+			if (path!=null && path.getLastPathComponent() instanceof BSTreeNode.StationNode stationNode && !stationNode.isMarker())
+				stationNodes.add(stationNode);
 		}
+		return stationNodes;
+	}
+	
+	private void updateVisibleTreeNodeIcons()
+	{
+		if (bsTreeModel==null) return;
+		for (BSTreeNode.StationNode stationNode : getVisibleStationNodes())
+			if (stationNode.icon==null)
+			{
+				Icon icon = BSTreeNode.StationNode.getIcon(stationNode.getStationID());
+				if (icon!=null)
+				{
+					stationNode.setPicon(icon);
+					bsTreeModel.nodeChanged(stationNode);
+				}
+			}
 	}
 	
+	
 	private void fetchAllTreeNodeIcons(boolean overwrite)
 	{
 		if (bsTreeModel!=null && bsTreeRoot!=null)
 		{
-			PiconLoader piconLoader = PiconLoader.getInstance();
 			bsTreeRoot.updateAllStationNodes(
 					bsTreeModel,
 					(stationID,stations) ->
 					{
-						BufferedImage piconImage = piconLoader.getPicon(stationID);
-						if (piconImage==null && !overwrite) return false;
+						Icon icon = BSTreeNode.StationNode.getIcon(stationID);
+						if (icon==null && !overwrite) return false;
 						
-						Icon icon = piconImage==null ? null : BSTreeNode.StationNode.getIcon(piconImage);
-						stations.forEach(treeNode -> treeNode.setPicon(piconImage, icon));
+						stations.forEach(treeNode -> treeNode.setPicon(icon));
 						
 						return true;
 					}
@@ -366,6 +428,7 @@ public class BouquetsNStations extends JPanel
 					String baseURL = main.getBaseURL();
 					if (baseURL==null) return;
 					piconLoader.setBaseURL(baseURL);
+					visibleStationsTracker.update();
 					clickedBouquetNode.forEachStation(stationNode -> piconLoader.addTask(stationNode.getStationID()));
 				}
 				else if (clickedStationNode!=null)
@@ -373,7 +436,7 @@ public class BouquetsNStations extends JPanel
 					String baseURL = main.getBaseURL();
 					if (baseURL==null) return;
 					piconLoader.setBaseURL(baseURL);
-					piconLoader.addTask(clickedStationNode.getStationID());
+					piconLoader.addTask(clickedStationNode.getStationID(), PiconLoader.Priority.High);
 				}
 			}));
 			
@@ -382,6 +445,41 @@ public class BouquetsNStations extends JPanel
 				fetchAllTreeNodeIcons(true);
 			}));
 			
+			add(OWCTools.createMenuItem("Export Picon Archive", GrayCommandIcons.IconGroup.Save, ev -> {
+				main.runWithProgressDialog("Export Picon Archive", pd -> {
+					OWCTools.setIndeterminateProgressTask(pd, "Choose Output File");
+					if (zipFileChooser.showSaveDialog(main.mainWindow)!=FileChooser.APPROVE_OPTION) return;
+					File zipFile = zipFileChooser.getSelectedFile();
+					
+					OWCTools.setIndeterminateProgressTask(pd, "Write Picon Archive");
+					int count = PiconLoader.getInstance().exportArchive(zipFile);
+					statusLine.showMessage(String.format("%d picons exported", count), 4000);
+				});
+			}));
+			
+			add(OWCTools.createMenuItem("Show Picon Loader Metrics", ev -> {
+				TextAreaDialog.showText(main.mainWindow, "Picon Loader Metrics", 400, 500, true, PiconLoader.getInstance().getMetrics().generateReport());
+			}));
+			
+			add(OWCTools.createMenuItem("Save Picon Loader Metrics", GrayCommandIcons.IconGroup.Save, ev -> {
+				PiconLoaderMetrics.Snapshot metrics = PiconLoader.getInstance().getMetrics();
+				if (txtFileChooser.showSaveDialog(main.mainWindow)!=FileChooser.APPROVE_OPTION) return;
+				metrics.writeToFile(txtFileChooser.getSelectedFile());
+			}));
+			
+			add(OWCTools.createMenuItem("Import Picon Archive", GrayCommandIcons.IconGroup.Open, ev -> {
+				main.runWithProgressDialog("Import Picon Archive", pd -> {
+					OWCTools.setIndeterminateProgressTask(pd, "Choose Input File");
+					if (zipFileChooser.showOpenDialog(main.mainWindow)!=FileChooser.APPROVE_OPTION) return;
+					File zipFile = zipFileChooser.getSelectedFile();
+					
+					OWCTools.setIndeterminateProgressTask(pd, "Read Picon Archive");
+					int count = PiconLoader.getInstance().importArchive(zipFile);
+					statusLine.showMessage(String.format("%d picons imported", count), 4000);
+					SwingUtilities.invokeLater(visibleStationsTracker::scheduleUpdate);
+				});
+			}));
+			
 			
 			JMenuItem miSwitchToStation = add(OWCTools.createMenuItem("##",                                   e->main. zapToStation(clickedStationNode.getStationID())));
 			JMenuItem miStreamStation   = add(OWCTools.createMenuItem("##", GrayCommandIcons.IconGroup.Image, e->main.streamStation(clickedStationNode.getStationID())));
@@ -545,9 +643,13 @@ public class BouquetsNStations extends JPanel
 		StationID stationID = currentStationData.stationInfo.stationID;
 		if (stationID == null) return;
 		
-		bsTreeRoot.updateStationNodes(stationID, bsTreeModel, stations->{
-			stations.forEach(station->{
-				station.isCurrentlyPlayed=isCurrentlyPlayed;
+		BSTreeNode.RootNode root = bsTreeRoot;
+		DefaultTreeModel treeModel = bsTreeModel;
+		SwingUtilities.invokeLater(()->{
+			root.updateStationNodes(List.of(stationID), treeModel, stations->{
+				stations.forEach(station->{
+					station.isCurrentlyPlayed=isCurrentlyPlayed;
+				});
 			});
 		});
 	}
@@ -612,7 +714,7 @@ public class BouquetsNStations extends JPanel
 				bsTreeRoot = new BSTreeNode.RootNode(bouquetData);
 				bsTreeModel = new DefaultTreeModel(bsTreeRoot, true);
 				bsTree.setModel(bsTreeModel);
-				fetchAllTreeNodeIcons(false);
+				visibleStationsTracker.scheduleUpdate();
 				if (update!=null)
 					update.run();
 			});
@@ -682,6 +784,15 @@ public class BouquetsNStations extends JPanel
 	public static BufferedImage scaleImage(BufferedImage img, int newHeight, Color bgColor) {
 		if (img==null) return null;
 		
+		int h = img.getHeight();
+		int w = img.getWidth();
+		int newWidth = (int) Math.round(w*newHeight / (double)h);
+		return scaleImage(img, newWidth, newHeight, bgColor);
+	}
+
+	public static BufferedImage scaleImage(BufferedImage img, int newWidth, int newHeight, Color bgColor) {
+		if (img==null) return null;
+		
 		BufferedImage img2;
 		if (bgColor==null)
 			img2 = img;
@@ -692,9 +803,6 @@ public class BouquetsNStations extends JPanel
 			g.drawImage(img, 0,0, bgColor, null);
 		}
 		
-		int h = img.getHeight();
-		int w = img.getWidth();
-		int newWidth = (int) Math.round(w*newHeight / (double)h);
 		BufferedImage scaledImg = ImageView.computeScaledImageByAreaSampling(img2, newWidth, newHeight, true);
 		
 		return scaledImg;
@@ -0,0 +1,180 @@
+package net.schwarzbaer.java.tools.openwebifcontroller.bouquetsnstations;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Vector;
+import java.util.function.BiPredicate;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import net.schwarzbaer.java.lib.openwebif.StationID;
+
+/**
+ * ZIP archive of picons: an "index.txt" ( lines of &lt;file name&gt; TAB &lt;station ID&gt; ) followed by the PNG files of the disk cache.
+ */
+class PiconArchive
+{
+	private static final String INDEX_FILENAME = "index.txt";
+
+	interface EntryConsumer
+	{
+		void accept(String idStr, byte[] bytes, long timeStamp_ms);
+	}
+
+	static int write(File zipFile, PiconDiskCache diskCache)
+	{
+		Vector<String> idStrs = diskCache.getIDStrs();
+		idStrs.sort(null);
+		int count = 0;
+
+		try (ZipOutputStream zipOut = new ZipOutputStream(new FileOutputStream(zipFile)))
+		{
+			zipOut.putNextEntry(new ZipEntry(INDEX_FILENAME));
+			PrintWriter indexOut = new PrintWriter(new OutputStreamWriter(zipOut, StandardCharsets.UTF_8));
+			for (String idStr : idStrs)
+				indexOut.printf("%s\t%s%n", PiconDiskCache.getFileName(idStr), idStr);
+			indexOut.flush();
+			zipOut.closeEntry();
+
+			for (String idStr : idStrs)
+			{
+				byte[] bytes = diskCache.read(idStr);
+				Long timeStamp_ms = diskCache.getTimeStamp(idStr);
+				if (bytes==null) continue;
+
+				ZipEntry entry = new ZipEntry(PiconDiskCache.getFileName(idStr));
+				if (timeStamp_ms!=null) entry.setTime(timeStamp_ms);
+				zipOut.putNextEntry(entry);
+				zipOut.write(bytes);
+				zipOut.closeEntry();
+				count++;
+			}
+		}
+		catch (IOException ex)
+		{
+			System.err.printf("Can't write picon archive \"%s\": %s%n", zipFile.getAbsolutePath(), ex.getMessage());
+		}
+
+		return count;
+	}
+
+	/**
+	 * Reads the archive in one pass from a memory mapped file.
+	 * @param shouldRead  is called with station ID and time stamp of an entry before its bytes are read
+	 * @return number of read entries
+	 */
+	static int read(File zipFile, BiPredicate<String,Long> shouldRead, EntryConsumer consumer)
+	{
+		int count = 0;
+
+		try (FileChannel channel = FileChannel.open(zipFile.toPath(), StandardOpenOption.READ))
+		{
+			if (channel.size() > Integer.MAX_VALUE)
+			{
+				System.err.printf("Can't read picon archive \"%s\": File is too big.%n", zipFile.getAbsolutePath());
+				return 0;
+			}
+
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			try (ZipInputStream zipIn = new ZipInputStream(new ByteBufferInputStream(buffer)))
+			{
+				HashMap<String,String> index = new HashMap<>();
+				ZipEntry entry;
+				while ((entry = zipIn.getNextEntry())!=null)
+				{
+					String name = entry.getName();
+					if (entry.isDirectory()) continue;
+
+					if (name.equals(INDEX_FILENAME))
+					{
+						readIndex(zipIn.readAllBytes(), index);
+						continue;
+					}
+					if (!name.endsWith(".png")) continue;
+
+					String idStr = index.get(name);
+					if (idStr==null) idStr = PiconDiskCache.getIDStr(name);
+					if (!isValidIDStr(idStr))
+					{
+						System.err.printf("Picon archive \"%s\": Entry \"%s\" has an invalid station ID \"%s\" and is ignored.%n", zipFile.getAbsolutePath(), name, idStr);
+						continue;
+					}
+					long timeStamp_ms = entry.getTime()<0 ? System.currentTimeMillis() : entry.getTime();
+
+					if (!shouldRead.test(idStr, timeStamp_ms)) continue;
+
+					consumer.accept(idStr, zipIn.readAllBytes(), timeStamp_ms);
+					count++;
+				}
+			}
+		}
+		catch (IOException ex)
+		{
+			System.err.printf("Can't read picon archive \"%s\": %s%n", zipFile.getAbsolutePath(), ex.getMessage());
+		}
+
+		return count;
+	}
+
+	/** only IDs, that are unchanged by parsing and formatting, are used as file names in the disk cache */
+	private static boolean isValidIDStr(String idStr)
+	{
+		StationID stationID = StationID.parseIDStr(idStr);
+		return stationID!=null && idStr.equals(stationID.toIDStr());
+	}
+
+	private static void readIndex(byte[] bytes, HashMap<String,String> index) throws IOException
+	{
+		try (BufferedReader in = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8)))
+		{
+			String line;
+			while ((line = in.readLine())!=null)
+			{
+				int pos = line.indexOf('\t');
+				if (pos>0) index.put(line.substring(0, pos), line.substring(pos+1));
+			}
+		}
+	}
+
+	private static class ByteBufferInputStream extends InputStream
+	{
+		private final ByteBuffer buffer;
+
+		ByteBufferInputStream(ByteBuffer buffer)
+		{
+			this.buffer = buffer;
+		}
+
+		@Override public int read()
+		{
+			return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+		}
+
+		@Override public int read(byte[] b, int off, int len)
+		{
+			if (len==0) return 0;
+			if (!buffer.hasRemaining()) return -1;
+			len = Math.min(len, buffer.remaining());
+			buffer.get(b, off, len);
+			return len;
+		}
+
+		@Override public int available()
+		{
+			return buffer.remaining();
+		}
+	}
+}
@@ -0,0 +1,406 @@
+package net.schwarzbaer.java.tools.openwebifcontroller.bouquetsnstations;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Vector;
+
+import javax.imageio.ImageIO;
+
+import net.schwarzbaer.java.lib.openwebif.StationID;
+import net.schwarzbaer.java.tools.openwebifcontroller.OpenWebifController;
+import net.schwarzbaer.java.tools.openwebifcontroller.OpenWebifController.AppSettings.ValueKey;
+
+class PiconDiskCache
+{
+	static final int DEFAULT_MAX_AGE_days = 30;
+	static final int DEFAULT_MISSING_TTL_h = 24;
+	private static final long ERROR_BACKOFF_ms = 5*60*1000L;
+	private static final int CONFIRMED_MISS_COUNT = 5;
+	private static final String MISSING_FILENAME = "missing.txt";
+	private static final String ARCHIVE_STATE_FILENAME = "archive.txt";
+
+	private record Miss(int count, long time_ms) {}
+
+	private final HashMap<String,Long> index = new HashMap<>(); // idStr -> time of last fetch
+	private final HashMap<String,Miss> misses = new HashMap<>();
+	private final long missingTTL_ms;
+	private boolean isIndexRead = false;
+	private boolean isMissesDirty = false;
+
+	PiconDiskCache()
+	{
+		missingTTL_ms = Math.max(1, OpenWebifController.settings.getInt(ValueKey.PiconCache_MissingTTL_h, DEFAULT_MISSING_TTL_h)) * 3600*1000L;
+	}
+
+	static String getFileName(String idStr)
+	{
+		return idStr.replace(':', '_') + ".png";
+	}
+
+	static String getIDStr(String fileName)
+	{
+		return fileName.substring(0, fileName.length()-".png".length()).replace('_', ':');
+	}
+
+	/** @return file of the given station ID in the given folder or <code>null</code>, if it would be outside of the folder */
+	private static File getFile(File folder, String idStr)
+	{
+		File file = new File(folder, getFileName(idStr));
+		try
+		{
+			if (file.getCanonicalFile().getParentFile().equals(folder.getCanonicalFile()))
+				return file;
+		}
+		catch (IOException ex) {}
+		System.err.printf("Station ID \"%s\" doesn't give a file in picon cache folder \"%s\".%n", idStr, folder.getAbsolutePath());
+		return null;
+	}
+
+	private static File getFolderForRead()
+	{
+		return OpenWebifController.LocalDataFile.PiconCache.getFileForRead();
+	}
+
+	private static File getFolderForWrite()
+	{
+		File folder = OpenWebifController.LocalDataFile.PiconCache.getFileForWrite();
+		if (folder==null) return null;
+		if (!folder.isDirectory())
+		{
+			try
+			{
+				Files.createDirectories(folder.toPath());
+			}
+			catch (IOException ex)
+			{
+				System.err.printf("Can't create folder \"%s\": IOException: %s%n", folder.getAbsolutePath(), ex.getMessage());
+				return null;
+			}
+		}
+		return folder;
+	}
+
+	private void readIndex()
+	{
+		if (isIndexRead) return;
+		isIndexRead = true;
+
+		readMisses();
+
+		File[] files = getFolderForRead().listFiles(file -> file.isFile() && file.getName().endsWith(".png"));
+		if (files==null) return;
+
+		for (File file : files)
+			index.put(getIDStr(file.getName()), file.lastModified());
+	}
+
+	private void readMisses()
+	{
+		File file = new File(getFolderForRead(), MISSING_FILENAME);
+		if (!file.isFile()) return;
+
+		try
+		{
+			for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8))
+			{
+				String[] parts = line.split("\t");
+				if (parts.length!=3) continue;
+				try
+				{
+					misses.put(parts[0], new Miss(Integer.parseInt(parts[1]), Long.parseLong(parts[2])));
+				}
+				catch (NumberFormatException ex) {}
+			}
+		}
+		catch (IOException ex)
+		{
+			System.err.printf("Can't read file \"%s\": %s%n", file.getAbsolutePath(), ex.getMessage());
+		}
+	}
+
+	synchronized void writeMisses()
+	{
+		if (!isMissesDirty) return;
+		File folder = getFolderForWrite();
+		if (folder==null) return;
+
+		File file = new File(folder, MISSING_FILENAME);
+		File tempFile = new File(folder, MISSING_FILENAME+".tmp");
+		Vector<String> lines = new Vector<>();
+		misses.forEach((idStr,miss) -> lines.add(String.format("%s\t%d\t%d", idStr, miss.count, miss.time_ms)));
+		lines.sort(null);
+		try
+		{
+			Files.write(tempFile.toPath(), lines, StandardCharsets.UTF_8);
+			try
+			{
+				Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException ex)
+			{
+				Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			isMissesDirty = false;
+		}
+		catch (IOException ex)
+		{
+			System.err.printf("Can't write file \"%s\": %s%n", file.getAbsolutePath(), ex.getMessage());
+		}
+	}
+
+	/**
+	 * A failed fetch can't be told apart from a missing picon (both give no image).
+	 * So the first failed fetches are treated as errors with a short backoff, that doubles with each failed fetch (5 min, 10 min, ...).
+	 * After {@value #CONFIRMED_MISS_COUNT} failed fetches in a row the picon is regarded as missing and gets the missing TTL.
+	 */
+	synchronized boolean isKnownMissing(StationID stationID)
+	{
+		readIndex();
+		Miss miss = misses.get(stationID.toIDStr());
+		if (miss==null) return false;
+
+		long ttl_ms = miss.count < CONFIRMED_MISS_COUNT
+				? Math.min(missingTTL_ms, ERROR_BACKOFF_ms << (miss.count-1))
+				: missingTTL_ms;
+		return System.currentTimeMillis() - miss.time_ms < ttl_ms;
+	}
+
+	synchronized void addMiss(StationID stationID)
+	{
+		readIndex();
+		Miss miss = misses.get(stationID.toIDStr());
+		misses.put(stationID.toIDStr(), new Miss(miss==null ? 1 : miss.count+1, System.currentTimeMillis()));
+		isMissesDirty = true;
+	}
+
+	synchronized void removeMiss(StationID stationID)
+	{
+		readIndex();
+		if (misses.remove(stationID.toIDStr())!=null)
+			isMissesDirty = true;
+	}
+
+	/** @return modification time and size of the given archive, that identify an already imported archive */
+	static String getArchiveState(File zipFile)
+	{
+		return String.format("%d\t%d", zipFile.lastModified(), zipFile.length());
+	}
+
+	synchronized boolean isArchiveImported(File zipFile)
+	{
+		File file = new File(getFolderForRead(), ARCHIVE_STATE_FILENAME);
+		if (!file.isFile()) return false;
+		try
+		{
+			return Files.readString(file.toPath(), StandardCharsets.UTF_8).strip().equals(getArchiveState(zipFile));
+		}
+		catch (IOException ex)
+		{
+			System.err.printf("Can't read file \"%s\": %s%n", file.getAbsolutePath(), ex.getMessage());
+			return false;
+		}
+	}
+
+	synchronized void setArchiveImported(String archiveState)
+	{
+		File folder = getFolderForWrite();
+		if (folder==null) return;
+		File file = new File(folder, ARCHIVE_STATE_FILENAME);
+		try
+		{
+			Files.writeString(file.toPath(), archiveState, StandardCharsets.UTF_8);
+		}
+		catch (IOException ex)
+		{
+			System.err.printf("Can't write file \"%s\": %s%n", file.getAbsolutePath(), ex.getMessage());
+		}
+	}
+
+	synchronized int size()
+	{
+		readIndex();
+		return index.size();
+	}
+
+	synchronized boolean contains(StationID stationID)
+	{
+		return contains(stationID.toIDStr());
+	}
+
+	synchronized boolean contains(String idStr)
+	{
+		readIndex();
+		return index.containsKey(idStr);
+	}
+
+	synchronized Vector<String> getIDStrs()
+	{
+		readIndex();
+		return new Vector<>(index.keySet());
+	}
+
+	synchronized Long getTimeStamp(String idStr)
+	{
+		readIndex();
+		return index.get(idStr);
+	}
+
+	byte[] read(StationID stationID)
+	{
+		return read(stationID.toIDStr());
+	}
+
+	/** The file is read outside of the lock, so a slow disk doesn't block other callers. */
+	byte[] read(String idStr)
+	{
+		synchronized (this)
+		{
+			readIndex();
+			if (!index.containsKey(idStr)) return null;
+		}
+
+		File file = getFile(getFolderForRead(), idStr);
+		if (file==null) return null;
+		try
+		{
+			return Files.readAllBytes(file.toPath());
+		}
+		catch (IOException ex)
+		{
+			System.err.printf("Can't read picon file \"%s\": %s%n", file.getAbsolutePath(), ex.getMessage());
+			synchronized (this) { index.remove(idStr); }
+			return null;
+		}
+	}
+
+	/** @return <code>true</code>, if the stored picon has been changed */
+	synchronized boolean write(StationID stationID, byte[] bytes)
+	{
+		return write(stationID.toIDStr(), bytes, System.currentTimeMillis());
+	}
+
+	/** @return <code>true</code>, if the stored picon has been changed */
+	synchronized boolean write(String idStr, byte[] bytes, long now)
+	{
+		readIndex();
+		File folder = getFolderForWrite();
+		if (folder==null) return false;
+
+		File file = getFile(folder, idStr);
+		if (file==null) return false;
+
+		if (index.containsKey(idStr) && file.isFile())
+		{
+			try
+			{
+				if (Arrays.equals(bytes, Files.readAllBytes(file.toPath())))
+				{
+					file.setLastModified(now);
+					index.put(idStr, now);
+					return false;
+				}
+			}
+			catch (IOException ex) {}
+		}
+
+		File tempFile = new File(folder, getFileName(idStr)+".tmp");
+		try
+		{
+			Files.write(tempFile.toPath(), bytes);
+			try
+			{
+				Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException ex)
+			{
+				Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		catch (IOException ex)
+		{
+			System.err.printf("Can't write picon file \"%s\": %s%n", file.getAbsolutePath(), ex.getMessage());
+			return false;
+		}
+
+		file.setLastModified(now);
+		index.put(idStr, file.lastModified());
+		return true;
+	}
+
+	synchronized void clear()
+	{
+		readIndex();
+		File folder = getFolderForRead();
+		for (String idStr : index.keySet())
+		{
+			File file = new File(folder, getFileName(idStr));
+			if (file.isFile() && !file.delete())
+				System.err.printf("Can't delete picon file \"%s\".%n", file.getAbsolutePath());
+		}
+		index.clear();
+
+		misses.clear();
+		isMissesDirty = false;
+		File missesFile = new File(folder, MISSING_FILENAME);
+		if (missesFile.isFile() && !missesFile.delete())
+			System.err.printf("Can't delete file \"%s\".%n", missesFile.getAbsolutePath());
+
+		// an emptied cache gets the picons of the archive again at next start
+		File archiveStateFile = new File(folder, ARCHIVE_STATE_FILENAME);
+		if (archiveStateFile.isFile() && !archiveStateFile.delete())
+			System.err.printf("Can't delete file \"%s\".%n", archiveStateFile.getAbsolutePath());
+	}
+
+	synchronized Vector<StationID> getOutdatedStations(long maxAge_ms)
+	{
+		readIndex();
+		long now = System.currentTimeMillis();
+		Vector<StationID> stationIDs = new Vector<>();
+		index.forEach((idStr,time_ms) -> {
+			if (now - time_ms > maxAge_ms)
+			{
+				StationID stationID = StationID.parseIDStr(idStr);
+				if (stationID!=null) stationIDs.add(stationID);
+			}
+		});
+		return stationIDs;
+	}
+
+	static byte[] encode(BufferedImage image)
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try
+		{
+			if (!ImageIO.write(image, "png", out))
+				return null;
+		}
+		catch (IOException ex)
+		{
+			System.err.printf("Can't encode picon: %s%n", ex.getMessage());
+			return null;
+		}
+		return out.toByteArray();
+	}
+
+	static BufferedImage decode(byte[] bytes)
+	{
+		try
+		{
+			return ImageIO.read(new ByteArrayInputStream(bytes));
+		}
+		catch (IOException ex)
+		{
+			System.err.printf("Can't decode picon: %s%n", ex.getMessage());
+			return null;
+		}
+	}
+}
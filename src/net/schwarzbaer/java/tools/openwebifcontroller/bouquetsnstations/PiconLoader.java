@@ -1,13 +1,28 @@
 package net.schwarzbaer.java.tools.openwebifcontroller.bouquetsnstations;
 
+import java.awt.Color;
 import java.awt.image.BufferedImage;
-import java.util.ArrayDeque;
+import java.io.File;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.swing.Icon;
+import javax.swing.ImageIcon;
 
 import net.schwarzbaer.java.lib.openwebif.OpenWebifTools;
 import net.schwarzbaer.java.lib.openwebif.StationID;
 import net.schwarzbaer.java.tools.openwebifcontroller.ListenerController;
+import net.schwarzbaer.java.tools.openwebifcontroller.OpenWebifController;
+import net.schwarzbaer.java.tools.openwebifcontroller.OpenWebifController.AppSettings.ValueKey;
 
 public class PiconLoader implements ListenerController.ListenerUser<PiconLoader.Listener>
 {
@@ -23,13 +38,39 @@ public class PiconLoader implements ListenerController.ListenerUser<PiconLoader.
 		return instance != null ? instance : (instance = new PiconLoader());
 	}
 
+	static final int DEFAULT_WORKER_COUNT = 4;
+	static final int DEFAULT_MEMORY_BUDGET_MB = 32;
+	/** time window, in which arriving picons are collected for one update of a view */
+	static final int UPDATE_BATCH_WINDOW_ms = 50;
+	
+	public enum Priority { Low, Normal, High }
+
 	private final Vector<Listener> listeners = new Vector<>(); 
-	private final ArrayDeque<StationID> unsolvedIDs = new ArrayDeque<>();
-	private final PiconCache piconCache = new PiconCache();
-	private Thread taskThread = null;
+	private final PriorityQueue<Task> pendingTasks = new PriorityQueue<>();
+	private final HashMap<String,Task> pendingTaskMap = new HashMap<>();
+	private final HashSet<String> inFlightIDs = new HashSet<>();
+	private final HashMap<String,Vector<CompletableFuture<BufferedImage>>> waitingFutures = new HashMap<>();
+	private final HashMap<Object,HashMap<String,StationID>> visibleStations = new HashMap<>();
+	private final HashSet<PiconCache.Key> pendingDiskLoads = new HashSet<>();
+	private final ExecutorService diskLoader = Executors.newSingleThreadExecutor(run->{
+		Thread thread = new Thread(run, "PiconLoader.DiskLoader");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final PiconCache piconCache;
+	private final PiconLoaderMetrics metrics = new PiconLoaderMetrics();
+	private final int maxWorkerCount;
+	private int workerCount = 0;
+	private long taskCounter = 0;
 	private String baseURL = null;
+	private boolean isRevalidationStarted = false;
 	
-	private PiconLoader() {}
+	private PiconLoader()
+	{
+		maxWorkerCount = Math.max(1, OpenWebifController.settings.getInt(ValueKey.PiconLoader_WorkerCount, DEFAULT_WORKER_COUNT));
+		int memoryBudget_MB = Math.max(1, OpenWebifController.settings.getInt(ValueKey.PiconCache_MemoryBudget_MB, DEFAULT_MEMORY_BUDGET_MB));
+		piconCache = new PiconCache(memoryBudget_MB*1024L*1024L, metrics);
+	}
 	
 	@Override public void    addListener(Listener l) { listeners.   add(l); }
 	@Override public void removeListener(Listener l) { listeners.remove(l); }
@@ -39,20 +80,208 @@ public class PiconLoader implements ListenerController.ListenerUser<PiconLoader.
 		return piconCache.get(stationID);
 	}
 
-	private synchronized void startTasks() {
-		if (taskThread!=null)
-			return;
-		taskThread = new Thread(()->{
-			//System.out.println("PiconLoader.start");
-			while (performTask());
-			//System.out.println("PiconLoader.end");
-			showMessage(" ", 100);
+	/** memory only, for the EDT: a picon, that isn't in memory, is loaded from disk in background and the listeners are informed afterwards */
+	BufferedImage getPiconFromMemory(StationID stationID)
+	{
+		BufferedImage piconImage = piconCache.peek(stationID);
+		if (piconImage==null) loadFromDiskLater(stationID, 0, 0, null);
+		return piconImage;
+	}
+
+	public PiconLoaderMetrics.Snapshot getMetrics()
+	{
+		int pendingCount, inFlightCount, workers;
+		synchronized (this) {
+			pendingCount = pendingTasks.size();
+			inFlightCount = inFlightIDs.size();
+			workers = workerCount;
+		}
+		return metrics.getSnapshot(pendingCount, inFlightCount, workers, piconCache.size());
+	}
+
+	/** @return <code>true</code>, if the picon of the given station is cached or known to be missing */
+	boolean isFetched(StationID stationID)
+	{
+		return piconCache.contains(stationID) || piconCache.isKnownMissing(stationID);
+	}
+
+	synchronized boolean hasForegroundTasks()
+	{
+		for (Task task : pendingTasks)
+			if (task.priority!=Priority.Low)
+				return true;
+		return false;
+	}
+
+	/** @param width  width of scaled image or 0 to keep the aspect ratio */
+	public BufferedImage getScaledPicon(StationID stationID, int width, int height, Color bgColor)
+	{
+		PiconCache.Entry entry = piconCache.getScaled(stationID, width, height, bgColor);
+		return entry==null ? null : entry.image;
+	}
+
+	public Icon getPiconIcon(StationID stationID, int height, Color bgColor)
+	{
+		return piconCache.getIcon(stationID, 0, height, bgColor);
+	}
+
+	/** memory only, for the EDT (see {@link #getPiconFromMemory(StationID)}) */
+	BufferedImage getScaledPiconFromMemory(StationID stationID, int width, int height, Color bgColor)
+	{
+		PiconCache.Entry entry = piconCache.peekScaled(stationID, width, height, bgColor);
+		if (entry==null) loadFromDiskLater(stationID, width, height, bgColor);
+		return entry==null ? null : entry.image;
+	}
+
+	/** memory only, for the EDT (see {@link #getPiconFromMemory(StationID)}) */
+	Icon getPiconIconFromMemory(StationID stationID, int height, Color bgColor)
+	{
+		Icon icon = piconCache.peekIcon(stationID, 0, height, bgColor);
+		if (icon==null) loadFromDiskLater(stationID, 0, height, bgColor);
+		return icon;
+	}
+
+	/** @param height  height of scaled image or 0 for the original image */
+	private void loadFromDiskLater(StationID stationID, int width, int height, Color bgColor)
+	{
+		if (stationID==null || !piconCache.contains(stationID)) return;
+		PiconCache.Key key = height<=0 ? PiconCache.Key.create(stationID) : PiconCache.Key.create(stationID, width, height, bgColor);
+		synchronized (pendingDiskLoads) {
+			if (!pendingDiskLoads.add(key)) return;
+		}
+		diskLoader.execute(()->{
+			BufferedImage piconImage;
+			if (height<=0)
+				piconImage = piconCache.get(stationID);
+			else {
+				PiconCache.Entry entry = piconCache.getScaled(stationID, width, height, bgColor);
+				piconImage = entry==null ? null : entry.image;
+			}
+			synchronized (pendingDiskLoads) { pendingDiskLoads.remove(key); }
+			if (piconImage!=null)
+				updatePicon(stationID, height<=0 ? piconImage : piconCache.get(stationID));
 		});
-		taskThread.start();
 	}
 
-	private synchronized void updateStatus() {
-		String msg = String.format("Picon Loader : %d pending tasks, %d picons cached", unsolvedIDs.size(), piconCache.size());
+	/** The returned future is completed in a worker thread (or immediately, if the picon is already in memory). Its value is <code>null</code>, if no picon could be fetched. */
+	public CompletableFuture<BufferedImage> getPiconAsync(StationID stationID, Priority priority)
+	{
+		if (piconCache.isLoaded(stationID))
+			return CompletableFuture.completedFuture(piconCache.get(stationID));
+		
+		CompletableFuture<BufferedImage> future = new CompletableFuture<>();
+		synchronized (this) {
+			waitingFutures.computeIfAbsent(stationID.toIDStr(), idStr -> new Vector<>()).add(future);
+			addTask(stationID, priority);
+		}
+		return future;
+	}
+
+	public CompletableFuture<Icon> getPiconIconAsync(StationID stationID, int height, Color bgColor, Priority priority)
+	{
+		return getPiconAsync(stationID, priority).thenApply(piconImage -> piconImage==null ? null : getPiconIcon(stationID, height, bgColor));
+	}
+	
+	/**
+	 * Pending tasks of stations, that are visible in a view, get a high priority.
+	 * Visible stations, that aren't cached, known as missing or already requested, are requested with high priority, if a base URL is known.
+	 * @param owner  the view, that shows the given stations
+	 */
+	synchronized void setVisibleStations(Object owner, Collection<StationID> stationIDs) {
+		HashMap<String,StationID> newStations = new HashMap<>();
+		for (StationID stationID : stationIDs)
+			if (stationID!=null)
+				newStations.put(stationID.toIDStr(), stationID);
+		
+		HashMap<String,StationID> oldStations = newStations.isEmpty() ? visibleStations.remove(owner) : visibleStations.put(owner, newStations);
+		if (oldStations!=null)
+			for (String idStr : oldStations.keySet())
+				if (!isVisible(idStr))
+					changePriority(idStr, Priority.High, Priority.Normal);
+		
+		for (String idStr : newStations.keySet())
+			changePriority(idStr, null, Priority.High);
+		
+		addTasksForVisibleStations(newStations.values());
+	}
+
+	private void addTasksForVisibleStations(Collection<StationID> stationIDs) {
+		if (baseURL==null) return;
+		for (StationID stationID : stationIDs)
+		{
+			String idStr = stationID.toIDStr();
+			if (pendingTaskMap.containsKey(idStr) || inFlightIDs.contains(idStr)) continue;
+			if (piconCache.contains(stationID) || piconCache.isKnownMissing(stationID)) continue;
+			addTask(stationID, Priority.High);
+		}
+	}
+
+	/** Pending tasks of stations, that aren't visible anymore (e.g. in a collapsed bouquet), are deferred. */
+	synchronized void deferTasks(Collection<StationID> stationIDs) {
+		for (StationID stationID : stationIDs)
+			if (stationID!=null && !isVisible(stationID.toIDStr()))
+				changePriority(stationID.toIDStr(), null, Priority.Low);
+	}
+
+	private boolean isVisible(String idStr) {
+		for (HashMap<String,StationID> stations : visibleStations.values())
+			if (stations.containsKey(idStr))
+				return true;
+		return false;
+	}
+
+	private void changePriority(String idStr, Priority oldPriority, Priority newPriority) {
+		Task task = pendingTaskMap.get(idStr);
+		if (task==null || task.priority==newPriority) return;
+		if (oldPriority!=null && task.priority!=oldPriority) return;
+		
+		pendingTasks.remove(task);
+		task = new Task(task.stationID, newPriority, task.revalidate, task.index);
+		pendingTasks.add(task);
+		pendingTaskMap.put(idStr, task);
+	}
+	
+	private static class Task implements Comparable<Task>
+	{
+		final StationID stationID;
+		final Priority priority;
+		final boolean revalidate;
+		final long index;
+		
+		Task(StationID stationID, Priority priority, boolean revalidate, long index)
+		{
+			this.stationID = stationID;
+			this.priority = priority;
+			this.revalidate = revalidate;
+			this.index = index;
+		}
+
+		@Override public int compareTo(Task other)
+		{
+			int n = other.priority.compareTo(priority);
+			if (n!=0) return n;
+			return Long.compare(index, other.index);
+		}
+	}
+
+	private synchronized void startTasks() {
+		while (workerCount < maxWorkerCount && workerCount < pendingTasks.size())
+		{
+			workerCount++;
+			Thread thread = new Thread(()->{
+				//System.out.println("PiconLoader.start");
+				while (performTask());
+				//System.out.println("PiconLoader.end");
+			}, "PiconLoader.Worker");
+			thread.setDaemon(true);
+			thread.start();
+		}
+	}
+
+	private void updateStatus() {
+		int pendingCount;
+		synchronized (this) { pendingCount = pendingTasks.size() + inFlightIDs.size(); }
+		String msg = String.format("Picon Loader : %d pending tasks, %d picons cached", pendingCount, piconCache.size());
 		showMessage(msg, 2000);
 	}
 
@@ -69,31 +298,60 @@ public class PiconLoader implements ListenerController.ListenerUser<PiconLoader.
 	private boolean performTask() {
 		updateStatus();
 		
-		StationID stationID = null;
+		Task task = null;
 		String localBaseURL = null;
 		synchronized (this) {
-			if (baseURL!=null && !unsolvedIDs.isEmpty()) {
-				stationID = unsolvedIDs.pollFirst();
+			if (baseURL!=null && !pendingTasks.isEmpty()) {
+				task = pendingTasks.poll();
+				pendingTaskMap.remove(task.stationID.toIDStr());
+				inFlightIDs.add(task.stationID.toIDStr());
 				localBaseURL = baseURL;
 			}
 		}
 		
-		if (stationID!=null) {
+		if (task!=null) {
+			StationID stationID = task.stationID;
 			BufferedImage piconImage;
-			if (localBaseURL!=null && !piconCache.contains(stationID))
-				piconCache.put(stationID, piconImage = OpenWebifTools.getPicon(localBaseURL, stationID));
+			boolean isChanged = true;
+			if (localBaseURL!=null && (task.revalidate || (!piconCache.contains(stationID) && !piconCache.isKnownMissing(stationID))))
+			{
+				long start_ms = System.currentTimeMillis();
+				piconImage = OpenWebifTools.getPicon(localBaseURL, stationID);
+				metrics.addFetch(System.currentTimeMillis()-start_ms, piconImage==null);
+				if (piconImage==null && task.revalidate)
+				{
+					isChanged = false;
+					piconImage = piconCache.get(stationID);
+				}
+				else
+					isChanged = piconCache.put(stationID, piconImage);
+			}
 			else
 				piconImage = piconCache.get(stationID);
-			if (piconImage!=null)
+			Vector<CompletableFuture<BufferedImage>> futures;
+			synchronized (this) {
+				inFlightIDs.remove(stationID.toIDStr());
+				futures = waitingFutures.remove(stationID.toIDStr());
+			}
+			if (piconImage!=null && isChanged)
 				updatePicon(stationID, piconImage);
+			if (futures!=null)
+				for (CompletableFuture<BufferedImage> future : futures)
+					future.complete(piconImage);
 			return true;
 		}
 		
 		boolean isEverythingDone = false;
+		boolean isLastWorker = false;
 		synchronized (this) {
-			isEverythingDone = unsolvedIDs.isEmpty();
+			isEverythingDone = pendingTasks.isEmpty() || baseURL==null;
 			if (isEverythingDone)
-				taskThread = null;
+				workerCount--;
+			isLastWorker = isEverythingDone && workerCount==0;
+		}
+		if (isLastWorker) {
+			piconCache.writeMisses();
+			showMessage(" ", 100);
 		}
 		
 		return !isEverythingDone;
@@ -103,33 +361,309 @@ public class PiconLoader implements ListenerController.ListenerUser<PiconLoader.
 		piconCache.clear();
 	}
 
+	int exportArchive(File zipFile) {
+		return piconCache.exportArchive(zipFile);
+	}
+
+	int importArchive(File zipFile) {
+		int count = piconCache.importArchive(zipFile);
+		updateStatus();
+		return count;
+	}
+
+	/** imports the picon archive in "local data", if present and changed since its last import */
+	public void importArchiveIfPresent() {
+		File zipFile = OpenWebifController.LocalDataFile.PiconArchive.getFileForRead();
+		if (!zipFile.isFile()) return;
+		if (piconCache.isArchiveImported(zipFile)) {
+			System.out.printf("Picon archive \"%s\" is unchanged since last import.%n", zipFile.getAbsolutePath());
+			return;
+		}
+		String archiveState = PiconDiskCache.getArchiveState(zipFile);
+		importArchive(zipFile);
+		piconCache.setArchiveImported(archiveState);
+	}
+
+	synchronized boolean hasBaseURL() {
+		return baseURL!=null;
+	}
+
 	synchronized void setBaseURL(String baseURL) {
 		this.baseURL = baseURL;
+		if (this.baseURL!=null)
+		{
+			if (!isRevalidationStarted)
+			{
+				isRevalidationStarted = true;
+				int maxAge_days = OpenWebifController.settings.getInt(ValueKey.PiconCache_MaxAge_days, PiconDiskCache.DEFAULT_MAX_AGE_days);
+				piconCache.getOutdatedStations(maxAge_days*24*3600*1000L).forEach(stationID -> addTask(stationID, Priority.Low, true));
+			}
+			visibleStations.values().forEach(stations -> addTasksForVisibleStations(stations.values()));
+			startTasks();
+		}
+	}
+
+	void addTask(StationID stationID) {
+		addTask(stationID, Priority.Normal);
 	}
 
-	synchronized void addTask(StationID stationID) {
-		unsolvedIDs.add(stationID);
+	/** requests for a station, that is already pending or in flight, are attached to the existing request; a higher priority is taken over by a pending request */
+	synchronized void addTask(StationID stationID, Priority priority) {
+		addTask(stationID, priority, false);
+	}
+
+	private synchronized void addTask(StationID stationID, Priority priority, boolean revalidate) {
+		if (stationID==null) return;
+		String idStr = stationID.toIDStr();
+		if (inFlightIDs.contains(idStr))
+			return;
+		if (isVisible(idStr))
+			priority = Priority.High;
+		
+		Task pendingTask = pendingTaskMap.get(idStr);
+		if (pendingTask!=null)
+		{
+			if (pendingTask.priority.compareTo(priority) >= 0 && (pendingTask.revalidate || !revalidate))
+				return;
+			if (pendingTask.priority.compareTo(priority) > 0)
+				priority = pendingTask.priority;
+			revalidate |= pendingTask.revalidate;
+			pendingTasks.remove(pendingTask);
+		}
+		
+		Task task = new Task(stationID, priority, revalidate, taskCounter++);
+		pendingTasks.add(task);
+		pendingTaskMap.put(idStr, task);
 		startTasks();
 	}
 	
+	/**
+	 * Decoded picons and their scaled variants in memory, limited by a byte budget with LRU eviction.<br>
+	 * The memory is backed by PNG files on disk, that are decoded on first use.<br>
+	 * Disk I/O, decoding, encoding and scaling are done outside of the lock. Only the results are put into memory under the lock.
+	 */
 	private static class PiconCache
 	{
-		private final HashMap<String,BufferedImage> cache = new HashMap<>();
+		private record Key(String idStr, int width, int height, Integer bgColor)
+		{
+			static Key create(StationID stationID) {
+				return new Key(stationID.toIDStr(), 0, 0, null);
+			}
+			static Key create(StationID stationID, int width, int height, Color bgColor) {
+				return new Key(stationID.toIDStr(), width, height, bgColor==null ? null : bgColor.getRGB());
+			}
+			boolean isOriginal() {
+				return height<=0;
+			}
+		}
+		
+		static class Entry
+		{
+			final BufferedImage image;
+			final long size;
+			Icon icon;
+			
+			Entry(BufferedImage image)
+			{
+				this.image = image;
+				size = image==null ? 64 : 4L*image.getWidth()*image.getHeight();
+				icon = null;
+			}
+		}
+		
+		private final LinkedHashMap<Key,Entry> cache = new LinkedHashMap<>(16, 0.75f, true);
+		private final PiconDiskCache diskCache = new PiconDiskCache();
+		private final PiconLoaderMetrics metrics;
+		private final long maxSize;
+		private long size;
+		private long generation; // changes with each picon change, so results of older data aren't put into memory
+		
+		PiconCache(long maxSize, PiconLoaderMetrics metrics)
+		{
+			this.maxSize = maxSize;
+			this.metrics = metrics;
+			size = 0;
+			generation = 0;
+		}
+		
+		private void putEntry(Key key, Entry entry) {
+			Entry oldEntry = cache.put(key, entry);
+			if (oldEntry!=null) size -= oldEntry.size;
+			size += entry.size;
+			
+			Iterator<Map.Entry<Key,Entry>> iterator = cache.entrySet().iterator();
+			while (size > maxSize && cache.size() > 1 && iterator.hasNext()) {
+				Map.Entry<Key,Entry> eldest = iterator.next();
+				if (eldest.getValue()==entry) continue;
+				size -= eldest.getValue().size;
+				iterator.remove();
+			}
+		}
+		
+		private void removeEntries(String idStr) {
+			Iterator<Map.Entry<Key,Entry>> iterator = cache.entrySet().iterator();
+			while (iterator.hasNext()) {
+				Map.Entry<Key,Entry> mapEntry = iterator.next();
+				if (mapEntry.getKey().idStr().equals(idStr)) {
+					size -= mapEntry.getValue().size;
+					iterator.remove();
+				}
+			}
+		}
 		
 		synchronized int size() {
-			return cache.size();
+			int size = diskCache.size();
+			for (Key key : cache.keySet())
+				if (key.isOriginal() && !diskCache.contains(key.idStr()))
+					size++;
+			return size;
 		}
 		synchronized void clear() {
+			generation++;
 			cache.clear();
+			size = 0;
+			diskCache.clear();
+		}
+		/** @return entry put into memory or an entry of another thread, that was put in the meantime */
+		private synchronized Entry publish(Key key, Entry entry, long expectedGeneration) {
+			Entry existing = cache.get(key);
+			if (existing!=null) return existing;
+			if (generation==expectedGeneration)
+				putEntry(key, entry);
+			return entry;
+		}
+		BufferedImage get(StationID stationID) {
+			Key key = Key.create(stationID);
+			long expectedGeneration;
+			synchronized (this) {
+				Entry entry = cache.get(key);
+				if (entry!=null) {
+					metrics.countMemoryHit();
+					return entry.image;
+				}
+				expectedGeneration = generation;
+			}
+			
+			byte[] bytes = diskCache.read(stationID);
+			if (bytes==null) {
+				metrics.countMiss();
+				return null;
+			}
+			
+			metrics.countDiskHit();
+			BufferedImage piconImage = PiconDiskCache.decode(bytes);
+			return publish(key, new Entry(piconImage), expectedGeneration).image;
+		}
+		Entry getScaled(StationID stationID, int width, int height, Color bgColor) {
+			Key key = Key.create(stationID, width, height, bgColor);
+			long expectedGeneration;
+			synchronized (this) {
+				Entry entry = cache.get(key);
+				if (entry!=null) {
+					metrics.countScaledHit();
+					return entry;
+				}
+				expectedGeneration = generation;
+			}
+			
+			metrics.countScaledMiss();
+			BufferedImage piconImage = get(stationID);
+			if (piconImage==null) return null;
+			
+			BufferedImage scaledImage = width<=0
+					? BouquetsNStations.scaleImage(piconImage, height, bgColor)
+					: BouquetsNStations.scaleImage(piconImage, width, height, bgColor);
+			return publish(key, new Entry(scaledImage), expectedGeneration);
+		}
+		Icon getIcon(StationID stationID, int width, int height, Color bgColor) {
+			Entry entry = getScaled(stationID, width, height, bgColor);
+			if (entry==null || entry.image==null) return null;
+			synchronized (this) {
+				if (entry.icon==null)
+					entry.icon = new ImageIcon(entry.image);
+				return entry.icon;
+			}
+		}
+		/** memory only, no disk I/O, no decoding, no scaling */
+		synchronized BufferedImage peek(StationID stationID) {
+			Entry entry = cache.get(Key.create(stationID));
+			if (entry==null) return null;
+			metrics.countMemoryHit();
+			return entry.image;
+		}
+		/** memory only, no disk I/O, no decoding, no scaling */
+		synchronized Entry peekScaled(StationID stationID, int width, int height, Color bgColor) {
+			Entry entry = cache.get(Key.create(stationID, width, height, bgColor));
+			if (entry!=null) metrics.countScaledHit();
+			return entry;
+		}
+		/** memory only, no disk I/O, no decoding, no scaling */
+		synchronized Icon peekIcon(StationID stationID, int width, int height, Color bgColor) {
+			Entry entry = peekScaled(stationID, width, height, bgColor);
+			if (entry==null || entry.image==null) return null;
+			if (entry.icon==null)
+				entry.icon = new ImageIcon(entry.image);
+			return entry.icon;
+		}
+		boolean isKnownMissing(StationID stationID) {
+			return diskCache.isKnownMissing(stationID);
 		}
-		synchronized BufferedImage get(StationID stationID) {
-			return cache.get(stationID.toIDStr());
+		void writeMisses() {
+			diskCache.writeMisses();
+		}
+		synchronized boolean isLoaded(StationID stationID) {
+			return cache.containsKey(Key.create(stationID));
 		}
 		synchronized boolean contains(StationID stationID) {
-			return cache.containsKey(stationID.toIDStr());
+			return cache.containsKey(Key.create(stationID)) || diskCache.contains(stationID);
+		}
+		/** @return <code>true</code>, if the cached picon has been changed */
+		boolean put(StationID stationID, BufferedImage piconImage) {
+			byte[] bytes = piconImage==null ? null : PiconDiskCache.encode(piconImage);
+			synchronized (this) {
+				generation++;
+				removeEntries(stationID.toIDStr());
+				// no entry for a missing picon, it would block a new fetch after the backoff of the miss
+				if (piconImage!=null)
+					putEntry(Key.create(stationID), new Entry(piconImage));
+			}
+			if (piconImage==null) {
+				diskCache.addMiss(stationID);
+				return true;
+			}
+			diskCache.removeMiss(stationID);
+			
+			if (bytes!=null) metrics.addDownloadedBytes(bytes.length);
+			return bytes==null || diskCache.write(stationID, bytes);
+		}
+		int exportArchive(File zipFile) {
+			return PiconArchive.write(zipFile, diskCache);
+		}
+		/** only entries, that are missing or older in the disk cache, are imported; only the removal of outdated memory entries needs the lock */
+		int importArchive(File zipFile) {
+			return PiconArchive.read(
+					zipFile,
+					(idStr, timeStamp_ms) -> {
+						Long storedTimeStamp_ms = diskCache.getTimeStamp(idStr);
+						return storedTimeStamp_ms==null || storedTimeStamp_ms < timeStamp_ms;
+					},
+					(idStr, bytes, timeStamp_ms) -> {
+						diskCache.write(idStr, bytes, timeStamp_ms);
+						synchronized (this) {
+							generation++;
+							removeEntries(idStr);
+						}
+					}
+			);
+		}
+		boolean isArchiveImported(File zipFile) {
+			return diskCache.isArchiveImported(zipFile);
+		}
+		void setArchiveImported(String archiveState) {
+			diskCache.setArchiveImported(archiveState);
 		}
-		synchronized void put(StationID stationID, BufferedImage piconImage) {
-			cache.put(stationID.toIDStr(), piconImage);
+		synchronized Vector<StationID> getOutdatedStations(long maxAge_ms) {
+			return diskCache.getOutdatedStations(maxAge_ms);
 		}
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,151 @@
+package net.schwarzbaer.java.tools.openwebifcontroller.bouquetsnstations;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import net.schwarzbaer.java.lib.gui.ValueListOutput;
+
+public class PiconLoaderMetrics
+{
+	/** upper bounds of latency histogram buckets, last bucket is unbounded */
+	private static final long[] LATENCY_BUCKETS_ms = { 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000 };
+
+	private final LongAdder memoryHits     = new LongAdder();
+	private final LongAdder diskHits       = new LongAdder();
+	private final LongAdder misses         = new LongAdder();
+	private final LongAdder scaledHits     = new LongAdder();
+	private final LongAdder scaledMisses   = new LongAdder();
+	private final LongAdder fetches        = new LongAdder();
+	private final LongAdder failedFetches  = new LongAdder();
+	private final LongAdder bytesDownloaded = new LongAdder();
+	private final LongAdder totalLatency_ms = new LongAdder();
+	private final AtomicLongArray latencyHistogram = new AtomicLongArray(LATENCY_BUCKETS_ms.length+1);
+
+	void countMemoryHit  () { memoryHits  .increment(); }
+	void countDiskHit    () { diskHits    .increment(); }
+	void countMiss       () { misses      .increment(); }
+	void countScaledHit  () { scaledHits  .increment(); }
+	void countScaledMiss () { scaledMisses.increment(); }
+	void addDownloadedBytes(long bytes) { bytesDownloaded.add(bytes); }
+
+	void addFetch(long duration_ms, boolean failed)
+	{
+		fetches.increment();
+		if (failed) failedFetches.increment();
+		totalLatency_ms.add(duration_ms);
+
+		int bucket = 0;
+		while (bucket<LATENCY_BUCKETS_ms.length && duration_ms>LATENCY_BUCKETS_ms[bucket])
+			bucket++;
+		latencyHistogram.incrementAndGet(bucket);
+	}
+
+	Snapshot getSnapshot(int pendingTasks, int inFlightTasks, int workers, int cachedPicons)
+	{
+		long[] histogram = new long[latencyHistogram.length()];
+		for (int i=0; i<histogram.length; i++)
+			histogram[i] = latencyHistogram.get(i);
+
+		return new Snapshot(
+				System.currentTimeMillis(),
+				memoryHits.sum(), diskHits.sum(), misses.sum(),
+				scaledHits.sum(), scaledMisses.sum(),
+				fetches.sum(), failedFetches.sum(), bytesDownloaded.sum(), totalLatency_ms.sum(), histogram,
+				pendingTasks, inFlightTasks, workers, cachedPicons
+		);
+	}
+
+	public record Snapshot(
+			long time_ms,
+			long memoryHits, long diskHits, long misses,
+			long scaledHits, long scaledMisses,
+			long fetches, long failedFetches, long bytesDownloaded, long totalLatency_ms, long[] latencyHistogram,
+			int pendingTasks, int inFlightTasks, int workers, int cachedPicons
+	) {
+		public double getHitRate()
+		{
+			long total = memoryHits + diskHits + misses;
+			return total==0 ? Double.NaN : (memoryHits + diskHits) / (double)total;
+		}
+
+		/** @return upper bound of the histogram bucket, that contains the given percentile, or <code>null</code> for the unbounded bucket or if there were no fetches */
+		public Long getLatencyPercentile_ms(double percentile)
+		{
+			long total = 0;
+			for (long n : latencyHistogram) total += n;
+			if (total==0) return null;
+
+			long threshold = (long) Math.ceil(total * percentile / 100.0);
+			long sum = 0;
+			for (int i=0; i<latencyHistogram.length; i++)
+			{
+				sum += latencyHistogram[i];
+				if (sum>=threshold)
+					return i<LATENCY_BUCKETS_ms.length ? LATENCY_BUCKETS_ms[i] : null;
+			}
+			return null;
+		}
+
+		public String generateReport()
+		{
+			ValueListOutput out = new ValueListOutput();
+			out.add(0, "Time", "%s", ZonedDateTime.ofInstant(Instant.ofEpochMilli(time_ms), ZoneId.systemDefault()).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME));
+
+			out.add(0, "Queue");
+			out.add(1, "Pending Tasks"  , pendingTasks);
+			out.add(1, "Running Fetches", inFlightTasks);
+			out.add(1, "Workers"        , workers);
+
+			out.add(0, "Cache");
+			out.add(1, "Cached Picons"  , cachedPicons);
+			out.add(1, "Memory Hits"    , memoryHits);
+			out.add(1, "Disk Hits"      , diskHits);
+			out.add(1, "Misses"         , misses);
+			out.add(1, "Hit Rate"       , "%s", Double.isNaN(getHitRate()) ? "--" : String.format("%1.1f%%", getHitRate()*100));
+			out.add(1, "Scaled Variants", "%d hits, %d misses", scaledHits, scaledMisses);
+
+			out.add(0, "Fetches");
+			out.add(1, "Total"          , fetches);
+			out.add(1, "Failed"         , failedFetches);
+			out.add(1, "Downloaded"     , "%1.1f kB (PNG encoded)", bytesDownloaded/1024.0);
+			out.add(1, "Mean Latency"   , "%s", fetches==0 ? "--" : String.format("%d ms", totalLatency_ms/fetches));
+			out.add(1, "Latency p50"    , "%s", formatLatency(getLatencyPercentile_ms(50)));
+			out.add(1, "Latency p90"    , "%s", formatLatency(getLatencyPercentile_ms(90)));
+			out.add(1, "Latency p99"    , "%s", formatLatency(getLatencyPercentile_ms(99)));
+
+			out.add(0, "Latency Histogram");
+			for (int i=0; i<latencyHistogram.length; i++)
+				out.add(1, i<LATENCY_BUCKETS_ms.length ? String.format("<= %d ms", LATENCY_BUCKETS_ms[i]) : String.format("> %d ms", LATENCY_BUCKETS_ms[i-1]), latencyHistogram[i]);
+
+			return out.generateOutput();
+		}
+
+		private String formatLatency(Long latency_ms)
+		{
+			if (latency_ms!=null) return String.format("<= %d ms", latency_ms);
+			return fetches==0 ? "--" : String.format("> %d ms", LATENCY_BUCKETS_ms[LATENCY_BUCKETS_ms.length-1]);
+		}
+
+		public void writeToFile(File file)
+		{
+			try (PrintWriter out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)))
+			{
+				out.print(generateReport());
+			}
+			catch (FileNotFoundException ex)
+			{
+				System.err.printf("Can't write picon loader metrics to file \"%s\": %s%n", file.getAbsolutePath(), ex.getMessage());
+			}
+		}
+	}
+}
@@ -0,0 +1,140 @@
+package net.schwarzbaer.java.tools.openwebifcontroller.bouquetsnstations;
+
+import java.util.LinkedHashMap;
+import java.util.Vector;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import net.schwarzbaer.java.lib.openwebif.Bouquet;
+import net.schwarzbaer.java.lib.openwebif.OpenWebifTools.BouquetData;
+import net.schwarzbaer.java.lib.openwebif.StationID;
+import net.schwarzbaer.java.tools.openwebifcontroller.ForegroundActivity;
+import net.schwarzbaer.java.tools.openwebifcontroller.OpenWebifController;
+import net.schwarzbaer.java.tools.openwebifcontroller.OpenWebifController.AppSettings.ValueKey;
+
+/**
+ * Fetches missing picons of all bouquets at low priority, while the user is inactive and no foreground request is running.
+ * The pass over all bouquets is repeated periodically, so stations, that failed or were added later, get their picons too.
+ */
+public class PiconPrefetcher
+{
+	static final int DEFAULT_IDLE_TIME_s = 20;
+	static final int DEFAULT_MAX_FETCHES_PER_MINUTE = 60;
+	private static final long POLL_INTERVAL_ms = 1000;
+	private static final long FETCH_TIMEOUT_s = 60;
+	private static final long PASS_INTERVAL_ms = 10*60*1000;
+	private static final int MAX_CONSECUTIVE_ERRORS = 5;
+
+	private final Supplier<BouquetData> getBouquetData;
+	private final Supplier<String> getBaseURL;
+	private final long idleTime_ms;
+	private final long fetchInterval_ms;
+	private Thread thread;
+
+	public PiconPrefetcher(Supplier<BouquetData> getBouquetData, Supplier<String> getBaseURL)
+	{
+		this.getBouquetData = getBouquetData;
+		this.getBaseURL = getBaseURL;
+		idleTime_ms = Math.max(0, OpenWebifController.settings.getInt(ValueKey.PiconPrefetcher_IdleTime_s, DEFAULT_IDLE_TIME_s)) * 1000L;
+		int maxFetchesPerMinute = OpenWebifController.settings.getInt(ValueKey.PiconPrefetcher_MaxFetchesPerMinute, DEFAULT_MAX_FETCHES_PER_MINUTE);
+		fetchInterval_ms = maxFetchesPerMinute<=0 ? -1 : 60000 / maxFetchesPerMinute;
+		thread = null;
+	}
+
+	public synchronized void start()
+	{
+		if (thread!=null || fetchInterval_ms<0) return;
+		ForegroundActivity.install();
+		thread = new Thread(this::run, "PiconPrefetcher");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		thread.start();
+	}
+
+	public synchronized void stop()
+	{
+		if (thread!=null) thread.interrupt();
+		thread = null;
+	}
+
+	private void run()
+	{
+		try
+		{
+			PiconLoader piconLoader = PiconLoader.getInstance();
+			while (true)
+			{
+				BouquetData bouquetData;
+				while ((bouquetData = getBouquetData.get())==null)
+					Thread.sleep(POLL_INTERVAL_ms);
+
+				// the configured base URL is used, if no view has set one yet; without one the prefetcher waits until it's configured
+				while (!piconLoader.hasBaseURL())
+				{
+					String baseURL = getBaseURL.get();
+					if (baseURL!=null)
+						piconLoader.setBaseURL(baseURL);
+					else
+						Thread.sleep(POLL_INTERVAL_ms);
+				}
+
+				runPass(piconLoader, bouquetData);
+				Thread.sleep(PASS_INTERVAL_ms);
+			}
+		}
+		catch (InterruptedException ex) {}
+
+		synchronized (this) { if (thread==Thread.currentThread()) thread = null; }
+	}
+
+	/** A missing picon is a valid answer of the receiver. Only failed or timed out requests count as errors. */
+	private void runPass(PiconLoader piconLoader, BouquetData bouquetData) throws InterruptedException
+	{
+		int consecutiveErrors = 0;
+		for (StationID stationID : getAllStations(bouquetData))
+		{
+			if (piconLoader.isFetched(stationID)) continue;
+
+			waitForIdleTime();
+
+			try
+			{
+				piconLoader.getPiconAsync(stationID, PiconLoader.Priority.Low).get(FETCH_TIMEOUT_s, TimeUnit.SECONDS);
+				consecutiveErrors = 0;
+			}
+			catch (ExecutionException | TimeoutException ex)
+			{
+				consecutiveErrors++;
+				if (consecutiveErrors >= MAX_CONSECUTIVE_ERRORS)
+				{
+					System.out.printf("PiconPrefetcher: %d requests failed in a row. Prefetch pass is stopped and repeated later.%n", consecutiveErrors);
+					return;
+				}
+			}
+
+			Thread.sleep(fetchInterval_ms);
+		}
+	}
+
+	private void waitForIdleTime() throws InterruptedException
+	{
+		while (ForegroundActivity.isRunning() || ForegroundActivity.getIdleTime_ms() < idleTime_ms || PiconLoader.getInstance().hasForegroundTasks())
+			Thread.sleep(POLL_INTERVAL_ms);
+	}
+
+	private static Vector<StationID> getAllStations(BouquetData bouquetData)
+	{
+		LinkedHashMap<String,StationID> stations = new LinkedHashMap<>();
+		for (Bouquet bouquet : bouquetData.bouquets)
+			for (Bouquet.SubService subservice : bouquet.subservices)
+				if (!subservice.isMarker())
+				{
+					StationID stationID = subservice.getStationID();
+					if (stationID!=null)
+						stations.putIfAbsent(stationID.toIDStr(), stationID);
+				}
+		return new Vector<>(stations.values());
+	}
+}
@@ -2,6 +2,8 @@ package net.schwarzbaer.java.tools.openwebifcontroller.bouquetsnstations;
 
 import java.awt.Color;
 import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.util.Collection;
 import java.util.function.Supplier;
 
 import javax.swing.JCheckBoxMenuItem;
@@ -15,6 +17,7 @@ import net.schwarzbaer.java.lib.gui.GeneralIcons.GrayCommandIcons;
 import net.schwarzbaer.java.lib.gui.ImageView;
 import net.schwarzbaer.java.lib.gui.ValueListOutput;
 import net.schwarzbaer.java.lib.openwebif.EPGevent;
+import net.schwarzbaer.java.lib.openwebif.StationID;
 import net.schwarzbaer.java.tools.openwebifcontroller.OWCTools;
 import net.schwarzbaer.java.tools.openwebifcontroller.OpenWebifController;
 import net.schwarzbaer.java.tools.openwebifcontroller.OpenWebifController.ExtendedTextArea;
@@ -103,7 +106,7 @@ class ValuePanel {
 			if (obj instanceof BSTreeNode.StationNode) {
 				shownStationNode = (BSTreeNode.StationNode) obj;
 				
-				imageView.setImage(shownStationNode.piconImage);
+				imageView.setImage(shownStationNode.getPiconImage());
 				imageView.reset();
 				
 				textView.setText(generateOutput(shownStationNode));
@@ -118,6 +121,21 @@ class ValuePanel {
 		imageView.reset();
 		textView.setText("");
 	}
+	
+	/** shows the picon of the shown station, if it has arrived after the station was selected */
+	void updatePicon(Collection<StationID> stationIDs) {
+		if (shownStationNode==null || shownStationNode.isMarker()) return;
+		String idStr = shownStationNode.getStationID().toIDStr();
+		if (stationIDs.stream().noneMatch(stationID -> stationID.toIDStr().equals(idStr))) return;
+		
+		imageView.setImage(shownStationNode.getPiconImage());
+		imageView.reset();
+		
+		synchronized (this) {
+			if (runningTask==null)
+				textView.setText(generateOutput(shownStationNode));
+		}
+	}
 
 	private String generateOutput(BSTreeNode.RootNode rootNode) {
 		ValueListOutput out = new ValueListOutput();
@@ -144,10 +162,11 @@ class ValuePanel {
 		out.add(0, "Program"          , stationNode.subservice.program);
 		out.add(0, "Service Reference", stationNode.subservice.servicereference);
 		
-		if (stationNode.piconImage==null)
+		BufferedImage piconImage = stationNode.getPiconImage();
+		if (piconImage==null)
 			out.add(0, "Picon Image", "%s", "none");
 		else
-			out.add(0, "Picon Image", "%d x %d", stationNode.piconImage.getWidth(), stationNode.piconImage.getHeight());
+			out.add(0, "Picon Image", "%d x %d", piconImage.getWidth(), piconImage.getHeight());
 		
 		if (stationNode.icon==null)
 			out.add(0, "Icon", "%s", "none");
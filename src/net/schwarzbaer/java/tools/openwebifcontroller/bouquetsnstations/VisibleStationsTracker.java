@@ -0,0 +1,55 @@
+package net.schwarzbaer.java.tools.openwebifcontroller.bouquetsnstations;
+
+import java.awt.event.HierarchyEvent;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+import javax.swing.JScrollPane;
+import javax.swing.Timer;
+
+import net.schwarzbaer.java.lib.openwebif.StationID;
+
+/**
+ * Reports the stations, that are shown in the viewport of a scroll pane, to {@link PiconLoader},
+ * so their picons are loaded first.
+ */
+class VisibleStationsTracker
+{
+	private static final int UPDATE_DELAY_ms = 100;
+
+	private final JScrollPane scrollPane;
+	private final Supplier<Collection<StationID>> getVisibleStations;
+	private final Runnable onUpdate;
+	private final Timer timer;
+
+	VisibleStationsTracker(JScrollPane scrollPane, Supplier<Collection<StationID>> getVisibleStations, Runnable onUpdate)
+	{
+		this.scrollPane = scrollPane;
+		this.getVisibleStations = getVisibleStations;
+		this.onUpdate = onUpdate;
+
+		timer = new Timer(UPDATE_DELAY_ms, e -> update());
+		timer.setRepeats(false);
+
+		this.scrollPane.getViewport().addChangeListener(e -> scheduleUpdate());
+		this.scrollPane.addHierarchyListener(e -> {
+			if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0)
+				scheduleUpdate();
+		});
+	}
+
+	void scheduleUpdate()
+	{
+		timer.restart();
+	}
+
+	void update()
+	{
+		timer.stop();
+		boolean isShowing = scrollPane.isShowing();
+		PiconLoader.getInstance().setVisibleStations(this, isShowing ? getVisibleStations.get() : List.of());
+		if (isShowing && onUpdate!=null)
+			onUpdate.run();
+	}
+}
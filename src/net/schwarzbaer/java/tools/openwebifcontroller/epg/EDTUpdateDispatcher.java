@@ -0,0 +1,23 @@
+package net.schwarzbaer.java.tools.openwebifcontroller.epg;
+
+import net.schwarzbaer.java.tools.openwebifcontroller.EDTCoalescer;
+import net.schwarzbaer.java.tools.openwebifcontroller.OpenWebifController;
+import net.schwarzbaer.java.tools.openwebifcontroller.OpenWebifController.AppSettings.ValueKey;
+
+/** replaces a pending task with the same key, all pending tasks are executed together in one EDT task */
+class EDTUpdateDispatcher extends EDTCoalescer<EDTUpdateDispatcher.Key,Runnable>
+{
+	static final int DEFAULT_INTERVAL_ms = 30;
+
+	enum Key { Status, TextboxOutput, ViewRebuild, ViewUpdate }
+
+	EDTUpdateDispatcher()
+	{
+		this(OpenWebifController.settings.getInt(ValueKey.EPG_UIUpdateInterval_ms, DEFAULT_INTERVAL_ms));
+	}
+
+	EDTUpdateDispatcher(int interval_ms)
+	{
+		super(interval_ms, tasks -> tasks.forEach(Runnable::run));
+	}
+}
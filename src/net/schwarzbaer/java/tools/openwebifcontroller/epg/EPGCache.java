@@ -0,0 +1,478 @@
+package net.schwarzbaer.java.tools.openwebifcontroller.epg;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.Vector;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import net.schwarzbaer.java.lib.openwebif.EPGevent;
+import net.schwarzbaer.java.lib.openwebif.StationID;
+import net.schwarzbaer.java.tools.openwebifcontroller.OpenWebifController;
+import net.schwarzbaer.java.tools.openwebifcontroller.OpenWebifController.AppSettings.ValueKey;
+
+class EPGCache
+{
+	static final long BLOCK_LENGTH_s = 6*3600;
+	private static final long EVICTION_AGE_s = 12*3600;
+	private static final int DEFAULT_MAX_BLOCK_AGE_min = 120;
+	private static final long WRITE_DELAY_ms = 5000;
+
+	private static final EPGCache instance = new EPGCache();
+	/** doesn't wait for the cache file -> for the EDT, the cache is empty until the file is read */
+	static EPGCache getInstance() { return instance; }
+	/** waits until the cache file is read -> not for the EDT */
+	static EPGCache getLoadedInstance() { instance.waitUntilLoaded(); return instance; }
+
+	private static class Block
+	{
+		long fetchTime_ms;
+		final Vector<EPGevent> events;
+
+		Block()
+		{
+			fetchTime_ms = 0;
+			events = new Vector<>();
+		}
+
+		boolean isFresh(long now_ms, long maxAge_ms)
+		{
+			return fetchTime_ms>0 && now_ms-fetchTime_ms <= maxAge_ms;
+		}
+	}
+
+	private final Map<String, TreeMap<Long,Block>> stations;
+	private boolean isDirty;
+	private final Object fileLock;
+	private final ScheduledExecutorService writer;
+	private ScheduledFuture<?> pendingWrite;
+	private final Future<?> loading;
+
+	EPGCache()
+	{
+		stations = new HashMap<>();
+		isDirty = false;
+		fileLock = new Object();
+		pendingWrite = null;
+		writer = Executors.newSingleThreadScheduledExecutor(run->{
+			Thread thread = new Thread(run, "EPGCache.Writer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		// the file is read in the writer thread -> not in the EDT and always before a write
+		loading = writer.submit(this::readFromFile);
+		Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "EPGCache.Flush"));
+	}
+
+	void waitUntilLoaded()
+	{
+		try { loading.get(); }
+		catch (InterruptedException ex) { Thread.currentThread().interrupt(); }
+		catch (ExecutionException ex)
+		{
+			System.err.printf("Exception while reading EPG Cache: %s%n", ex.getCause());
+		}
+	}
+
+	static long getBlockIndex(long time_UnixTS)
+	{
+		return Math.floorDiv(time_UnixTS, BLOCK_LENGTH_s);
+	}
+
+	static long getBlockStart(long blockIndex)
+	{
+		return blockIndex*BLOCK_LENGTH_s;
+	}
+
+	private static long getMaxBlockAge_ms()
+	{
+		return OpenWebifController.settings.getInt(ValueKey.EPGCache_MaxBlockAge_min, DEFAULT_MAX_BLOCK_AGE_min) * 60_000L;
+	}
+
+	private static Long getEnd(EPGevent event)
+	{
+		if (event.begin_timestamp==null) return null;
+		long duration_sec = event.duration_sec==null ? 0 : event.duration_sec;
+		return event.begin_timestamp+duration_sec;
+	}
+
+	synchronized boolean isCovered(Collection<StationID> stationIDs, long blockIndex)
+	{
+		long now_ms = System.currentTimeMillis();
+		long maxAge_ms = getMaxBlockAge_ms();
+		for (StationID stationID : stationIDs)
+		{
+			TreeMap<Long, Block> blocks = stations.get(stationID.toIDStr());
+			Block block = blocks==null ? null : blocks.get(blockIndex);
+			if (block==null || !block.isFresh(now_ms, maxAge_ms))
+				return false;
+		}
+		return true;
+	}
+
+	synchronized void putEvents(Collection<StationID> stationIDs, long begin_UnixTS, Long end_UnixTS, Vector<EPGevent> events)
+	{
+		if (events==null) return;
+		long now_ms = System.currentTimeMillis();
+
+		if (end_UnixTS==null)
+		{
+			// open ended request -> covered until the end of the last event
+			for (EPGevent event : events)
+			{
+				Long end = getEnd(event);
+				if (end!=null && (end_UnixTS==null || end_UnixTS<end))
+					end_UnixTS = end;
+			}
+		}
+
+		// mark all blocks completely covered by the request as fetched and clear their old content
+		if (end_UnixTS!=null)
+		{
+			long firstBlock = getBlockIndex(begin_UnixTS + BLOCK_LENGTH_s-1);
+			long lastBlock  = getBlockIndex(end_UnixTS) - 1;
+			for (StationID stationID : stationIDs)
+			{
+				TreeMap<Long, Block> blocks = stations.computeIfAbsent(stationID.toIDStr(), k->new TreeMap<>());
+				for (long blockIndex=firstBlock; blockIndex<=lastBlock; blockIndex++)
+				{
+					Block block = blocks.computeIfAbsent(blockIndex, k->new Block());
+					block.fetchTime_ms = now_ms;
+					block.events.clear();
+				}
+			}
+		}
+
+		for (EPGevent event : events)
+		{
+			if (event.sref==null || event.begin_timestamp==null) continue;
+			StationID stationID = StationID.parseIDStr(event.sref);
+			if (stationID==null) continue;
+
+			Block block = stations
+					.computeIfAbsent(stationID.toIDStr(), k->new TreeMap<>())
+					.computeIfAbsent(getBlockIndex(event.begin_timestamp), k->new Block());
+
+			block.events.removeIf(ev -> ev.id!=null && ev.id.equals(event.id));
+			block.events.add(event);
+		}
+
+		isDirty = true;
+	}
+
+	synchronized Vector<EPGevent> getEvents(StationID stationID, long begin_UnixTS, Long end_UnixTS)
+	{
+		Vector<EPGevent> result = new Vector<>();
+		TreeMap<Long, Block> blocks = stations.get(stationID.toIDStr());
+		if (blocks==null) return result;
+
+		// events begin in their block but can reach into later blocks -> start one block earlier
+		long firstBlock = getBlockIndex(begin_UnixTS)-1;
+		Map<Long, Block> relevantBlocks = end_UnixTS==null
+				? blocks.tailMap(firstBlock, true)
+				: blocks.subMap(firstBlock, true, getBlockIndex(end_UnixTS), true);
+
+		for (Block block : relevantBlocks.values())
+			for (EPGevent event : block.events)
+			{
+				Long end = getEnd(event);
+				if (end==null || end < begin_UnixTS) continue;
+				if (end_UnixTS!=null && event.begin_timestamp > end_UnixTS) continue;
+				result.add(event);
+			}
+
+		result.sort((ev1,ev2) -> Long.compare(ev1.begin_timestamp, ev2.begin_timestamp));
+		return result;
+	}
+
+	private void evictOldData()
+	{
+		long limit_UnixTS = System.currentTimeMillis()/1000 - EVICTION_AGE_s;
+		long limitBlock = getBlockIndex(limit_UnixTS)-1;
+		stations.values().forEach(blocks -> {
+			blocks.headMap(limitBlock).clear();
+			blocks.values().forEach(block -> block.events.removeIf(ev -> {
+				Long end = getEnd(ev);
+				return end==null || end < limit_UnixTS;
+			}));
+		});
+		stations.values().removeIf(TreeMap::isEmpty);
+	}
+
+	/** the file is parsed without lock, only the result is put into the cache under lock */
+	private void readFromFile()
+	{
+		File file = OpenWebifController.LocalDataFile.EPGCache.getFileForRead();
+		if (file==null)
+		{
+			System.err.printf("Can't read EPG Cache from file.%n");
+			return;
+		}
+		System.out.printf("Read EPG Cache from file \"%s\" ...%n", file.getAbsolutePath());
+
+		HashMap<String, TreeMap<Long,Block>> loadedStations = new HashMap<>();
+
+		try (BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)))
+		{
+			String value, line;
+			TreeMap<Long, Block> blocks = null;
+			Block block = null;
+			Map<String,String> eventValues = null;
+
+			while ( (line=in.readLine())!=null )
+			{
+				if (line.isBlank())
+					continue;
+
+				if (line.equals("[Block]"))
+				{
+					addEvent(block, eventValues);
+					blocks = null;
+					block = null;
+					eventValues = null;
+					continue;
+				}
+
+				if (line.equals("[Event]"))
+				{
+					addEvent(block, eventValues);
+					eventValues = new HashMap<>();
+					continue;
+				}
+
+				if (eventValues!=null)
+				{
+					int pos = line.indexOf(" = ");
+					if (pos>0)
+						eventValues.put(line.substring(0, pos), decode(line.substring(pos+3)));
+					continue;
+				}
+
+				if ( (value=getValue(line, "station = "))!=null )
+					blocks = loadedStations.computeIfAbsent(value, k->new TreeMap<>());
+
+				else if ( (value=getValue(line, "index = "))!=null && blocks!=null )
+				{
+					Long blockIndex = parseLong(line, value);
+					block = blockIndex==null ? null : blocks.computeIfAbsent(blockIndex, k->new Block());
+				}
+
+				else if ( (value=getValue(line, "fetched = "))!=null && block!=null )
+				{
+					Long fetchTime_ms = parseLong(line, value);
+					block.fetchTime_ms = fetchTime_ms==null ? 0 : fetchTime_ms;
+				}
+			}
+
+			addEvent(block, eventValues);
+		}
+		catch (FileNotFoundException ex) {}
+		catch (IOException ex)
+		{
+			System.err.printf("IOException while reading file \"%s\": %s%n", file.getAbsolutePath(), ex.getMessage());
+			// ex.printStackTrace();
+		}
+
+		synchronized (this)
+		{
+			stations.clear();
+			stations.putAll(loadedStations);
+			evictOldData();
+			isDirty = false;
+		}
+		System.out.printf("Done%n");
+	}
+
+	private static void addEvent(Block block, Map<String,String> values)
+	{
+		if (block==null || values==null) return;
+		EPGevent event = createEvent(values);
+		if (event.begin_timestamp!=null)
+			block.events.add(event);
+	}
+
+	private static EPGevent createEvent(Map<String,String> values)
+	{
+		return new EPGevent(
+				values.get("sref"),
+				values.get("station_name"),
+				values.get("provider"),
+				values.get("picon"),
+				parseLong(values.get("id")),
+				values.get("title"),
+				parseLongOrDefault(values.get("genreid"), 0L),
+				values.get("genre"),
+				values.get("date"),
+				values.get("begin"),
+				values.get("end"),
+				parseLong(values.get("begin_timestamp")),
+				parseLong(values.get("duration_sec")),
+				parseLong(values.get("duration_min")),
+				values.get("shortdesc"),
+				values.get("longdesc")
+		);
+	}
+
+	private static Long parseLong(String line, String value)
+	{
+		try { return Long.parseLong(value); }
+		catch (NumberFormatException ex) {
+			System.err.printf("NumberFormatException while parsing line \"%s\": %s%n", line, ex.getMessage());
+			// ex.printStackTrace();
+			return null;
+		}
+	}
+
+	private static Long parseLong(String value)
+	{
+		return parseLongOrDefault(value, null);
+	}
+
+	private static Long parseLongOrDefault(String value, Long defaultValue)
+	{
+		if (value==null) return defaultValue;
+		try { return Long.parseLong(value); }
+		catch (NumberFormatException ex) { return defaultValue; }
+	}
+
+	private static String getValue(String line, String prefix)
+	{
+		if (line.startsWith(prefix))
+			return line.substring(prefix.length());
+		return null;
+	}
+
+	/** writes file after a short delay, if cache was changed; further calls in this time postpone the write */
+	synchronized void writeToFileLater()
+	{
+		if (!isDirty) return;
+		if (pendingWrite!=null) pendingWrite.cancel(false);
+		pendingWrite = writer.schedule(this::flush, WRITE_DELAY_ms, TimeUnit.MILLISECONDS);
+	}
+
+	void flush()
+	{
+		synchronized (this) { pendingWrite = null; }
+		writeToFile();
+	}
+
+	void writeToFile()
+	{
+		File file = OpenWebifController.LocalDataFile.EPGCache.getFileForWrite();
+		if (file==null)
+		{
+			System.err.printf("Can't write EPG Cache to file.%n");
+			return;
+		}
+
+		synchronized (fileLock)
+		{
+			// content is generated under lock, file is written without -> readers of the cache don't wait for the disk
+			String content;
+			synchronized (this)
+			{
+				if (!isDirty) return;
+				evictOldData();
+				content = generateFileContent();
+				// changes while writing will set dirty flag again
+				isDirty = false;
+			}
+
+			System.out.printf("Write EPG Cache to file \"%s\" ...%n", file.getAbsolutePath());
+
+			// write to temp file first and replace old file afterwards -> no half written file on crash
+			File tempFile = new File(file.getAbsoluteFile().getParentFile(), file.getName()+".tmp");
+			try
+			{
+				Files.writeString(tempFile.toPath(), content, StandardCharsets.UTF_8);
+				try { Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE); }
+				catch (AtomicMoveNotSupportedException ex) { Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING); }
+			}
+			catch (IOException ex)
+			{
+				System.err.printf("IOException while writing file \"%s\": %s%n", file.getAbsolutePath(), ex.getMessage());
+				// ex.printStackTrace();
+				synchronized (this) { isDirty = true; }
+				return;
+			}
+
+			System.out.printf("Done%n");
+		}
+	}
+
+	private String generateFileContent()
+	{
+		StringWriter content = new StringWriter();
+		try (PrintWriter out = new PrintWriter(content))
+		{
+			Vector<String> stationIDs = new Vector<>( stations.keySet() );
+			stationIDs.sort(null);
+
+			for (String stationID : stationIDs)
+				stations.get(stationID).forEach((blockIndex, block) -> {
+					out.printf("[Block]%n");
+					out.printf("station = %s%n", stationID);
+					out.printf("index = %d%n", blockIndex);
+					out.printf("fetched = %d%n", block.fetchTime_ms);
+					for (EPGevent event : block.events)
+					{
+						out.printf("[Event]%n");
+						writeValue(out, "sref"           , event.sref);
+						writeValue(out, "station_name"   , event.station_name);
+						writeValue(out, "provider"       , event.provider);
+						writeValue(out, "picon"          , event.picon);
+						writeValue(out, "id"             , event.id);
+						writeValue(out, "title"          , event.title);
+						writeValue(out, "genreid"        , event.genreid);
+						writeValue(out, "genre"          , event.genre);
+						writeValue(out, "date"           , event.date);
+						writeValue(out, "begin"          , event.begin);
+						writeValue(out, "end"            , event.end);
+						writeValue(out, "begin_timestamp", event.begin_timestamp);
+						writeValue(out, "duration_sec"   , event.duration_sec);
+						writeValue(out, "duration_min"   , event.duration_min);
+						writeValue(out, "shortdesc"      , event.shortdesc);
+						writeValue(out, "longdesc"       , event.longdesc);
+					}
+					out.printf("%n");
+				});
+		}
+		return content.toString();
+	}
+
+	private static void writeValue(PrintWriter out, String name, Object value)
+	{
+		if (value!=null)
+			out.printf("%s = %s%n", name, encode(value.toString()));
+	}
+
+	private static String encode(String str)
+	{
+		return URLEncoder.encode(str, StandardCharsets.UTF_8);
+	}
+
+	private static String decode(String str)
+	{
+		return URLDecoder.decode(str, StandardCharsets.UTF_8);
+	}
+}
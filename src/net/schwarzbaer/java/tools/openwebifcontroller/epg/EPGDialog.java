@@ -13,6 +13,7 @@ import java.awt.event.WindowListener;
 import java.time.Clock;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoField;
+import java.util.HashMap;
 import java.util.Vector;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
@@ -34,7 +35,6 @@ import net.schwarzbaer.java.lib.gui.StandardDialog;
 import net.schwarzbaer.java.lib.gui.TimeInput;
 import net.schwarzbaer.java.lib.openwebif.Bouquet;
 import net.schwarzbaer.java.lib.openwebif.Bouquet.SubService;
-import net.schwarzbaer.java.lib.openwebif.EPG;
 import net.schwarzbaer.java.lib.openwebif.EPGevent;
 import net.schwarzbaer.java.lib.openwebif.StationID;
 import net.schwarzbaer.java.lib.openwebif.Timers;
@@ -110,7 +110,6 @@ public class EPGDialog extends StandardDialog implements TimerDataUpdateNotifier
 		}
 	}
 	
-	private final EPG epg;
 	private final Bouquet bouquet;
 	private final Vector<SubService> stations;
 	private final LoadEPGThread loadEPGThread;
@@ -123,10 +122,12 @@ public class EPGDialog extends StandardDialog implements TimerDataUpdateNotifier
 	private final TimeInputDialog epgTimeDialog;
 	private ZonedDateTime epgFocusTime;
 	private boolean saveSuggestedEPGViewFocus;
+	private Long prefetchedBeginTime_UnixTS;
+	private Long prefetchedEndTime_UnixTS;
 	private Timers timers;
 
 	public static void showDialog(
-			Window parent, String baseURL, EPG epg, Bouquet bouquet,
+			Window parent, String baseURL, Bouquet bouquet,
 			TimerDataUpdateNotifier timerNotifier,
 			BouquetsNStationsUpdateNotifier bouquetsNStationsNotifier,
 			ExternCommands externCommands,
@@ -134,14 +135,13 @@ public class EPGDialog extends StandardDialog implements TimerDataUpdateNotifier
 	{
 		if (parent                   ==null) throw new IllegalArgumentException();
 		if (baseURL                  ==null) throw new IllegalArgumentException();
-		if (epg                      ==null) throw new IllegalArgumentException();
 		if (timerNotifier            ==null) throw new IllegalArgumentException();
 		if (bouquet                  ==null) throw new IllegalArgumentException();
 		if (bouquetsNStationsNotifier==null) throw new IllegalArgumentException();
 		if (externCommands           ==null) throw new IllegalArgumentException();
 		new EPGDialog(
 				parent, ModalityType.APPLICATION_MODAL, false, baseURL,
-				epg, timerNotifier.getTimers(), bouquet, bouquetsNStationsNotifier.getCurrentStation(),
+				timerNotifier.getTimers(), bouquet, bouquetsNStationsNotifier.getCurrentStation(),
 				externCommands, additionalButtons
 			).showDialog(timerNotifier, bouquetsNStationsNotifier);
 	}
@@ -162,14 +162,15 @@ public class EPGDialog extends StandardDialog implements TimerDataUpdateNotifier
 
 	private EPGDialog(
 			Window parent, ModalityType modality, boolean repeatedUseOfDialogObject,
-			String baseURL, EPG epg, Timers timerData, Bouquet bouquet, StationID currentStation,
+			String baseURL, Timers timerData, Bouquet bouquet, StationID currentStation,
 			 ExternCommands externCommands, Component... additionalButtons
 	) {
 		super(parent, getTitle(bouquet), modality, repeatedUseOfDialogObject);
-		this.epg = epg;
 		this.bouquet = bouquet;
 		this.stations = this.bouquet.subservices;
 		timers = null;
+		prefetchedBeginTime_UnixTS = null;
+		prefetchedEndTime_UnixTS = null;
 		
 		epgTimeDialog = new TimeInputDialog(this,ModalityType.APPLICATION_MODAL,true,"EPG Focus", "Please enter date and time where EPG should focus on. ");
 		epgFocusTime = epgTimeDialog.getNow();
@@ -177,10 +178,11 @@ public class EPGDialog extends StandardDialog implements TimerDataUpdateNotifier
 		JLabel statusOutput = new JLabel("");
 		statusOutput.setBorder(BorderFactory.createLoweredSoftBevelBorder());
 		
-		//loadEPGThread = new LoadEPGThread(baseURL, this.epg, this.stations) {
-		loadEPGThread = new LoadEPGThread(baseURL, this.epg, this.bouquet) {
+		//loadEPGThread = new LoadEPGThread(baseURL, this.stations) {
+		loadEPGThread = new LoadEPGThread(baseURL, this.bouquet) {
 			@Override public void setStatusOutput(String text) { statusOutput.setText(text); }
 			@Override public void updateEPGView            () { EPGDialog.this.updateEPGView(); }
+			@Override public void updateEPGView(Vector<EPGevent> newEvents) { EPGDialog.this.updateEPGView(newEvents); }
 			@Override public void reconfigureHorizScrollBar() { EPGDialog.this.reconfigureEPGViewHorizScrollBar(); }
 		};
 		epgView = new EPGView(this.stations, getEpgFocusTime_ms()/1000);
@@ -206,6 +208,7 @@ public class EPGDialog extends StandardDialog implements TimerDataUpdateNotifier
 		JComboBox<LeadTime > cmbbxLeadTime = OWCTools.createComboBox(LeadTime.values(), LeadTime.get(leadTime_s), e->{
 			int oldLeadTime_s = leadTime_s;
 			OpenWebifController.settings.putInt(ValueKey.EPGDialog_LeadTime, leadTime_s = e.time_s);
+			clearPrefetchedTimeRange();
 			loadEPGThread.setLeadTime(oldLeadTime_s);
 			if (!loadEPGThread.isRunning()) {
 				if (oldLeadTime_s < leadTime_s) {
@@ -226,8 +229,17 @@ public class EPGDialog extends StandardDialog implements TimerDataUpdateNotifier
 				}
 			}
 		});
+		int parallelRequests = OpenWebifController.settings.getInt(ValueKey.EPGDialog_ParallelRequests, 3);
+		loadEPGThread.setMaxParallelRequests(parallelRequests);
+		JComboBox<Integer> cmbbxParallelRequests = OWCTools.createComboBox(new Integer[] { 1, 2, 3, 4, 6, 8 }, parallelRequests, val->{
+			OpenWebifController.settings.putInt(ValueKey.EPGDialog_ParallelRequests, val);
+			loadEPGThread.setMaxParallelRequests(val);
+		});
+		cmbbxParallelRequests.setToolTipText("Max. number of parallel EPG requests to STB");
+		
 		JComboBox<RangeTime> cmbbxRangeTime = OWCTools.createComboBox(RangeTime.values(), RangeTime.get(rangeTime_s), e->{
 			OpenWebifController.settings.putInt(ValueKey.EPGDialog_RangeTime, rangeTime_s = e.time_s);
+			clearPrefetchedTimeRange();
 			loadEPGThread.setRangeTime(rangeTime_s<0 ? RangeTime.getMax().time_s : rangeTime_s);
 			if (!loadEPGThread.isRunning()) {
 				updateEPGView();
@@ -266,6 +278,7 @@ public class EPGDialog extends StandardDialog implements TimerDataUpdateNotifier
 		epgViewHorizScrollBar.addAdjustmentListener(e -> {
 			if (!saveSuggestedEPGViewFocus) epgView.clearSuggestedFocus();
 			epgView.setRowAnchorTime_s(e.getValue());
+			if (!saveSuggestedEPGViewFocus) prefetchEPGIfNeeded();
 		});
 		//epgViewHorizScrollBar.setValues(epgView.getRowOffsetY(), epgView.getRowViewHeight(), 0, epgView.getContentHeight());
 		
@@ -287,6 +300,8 @@ public class EPGDialog extends StandardDialog implements TimerDataUpdateNotifier
 		set(c,5,0,0,0); northPanel.add(new JLabel("  Time Range: "),c);
 		set(c,6,0,0,0); northPanel.add(cmbbxLeadTime,c);
 		set(c,7,0,0,0); northPanel.add(cmbbxRangeTime,c);
+		set(c,8,0,0,0); northPanel.add(new JLabel("  Parallel Requests: "),c);
+		set(c,9,0,0,0); northPanel.add(cmbbxParallelRequests,c);
 		
 		JPanel centerPanel = new JPanel(new GridBagLayout());
 		set(c,0,0,1,1); centerPanel.add(epgView,c);
@@ -312,6 +327,7 @@ public class EPGDialog extends StandardDialog implements TimerDataUpdateNotifier
 			{
 				loadEPGThread.stop();
 				epgFocusTime = newValue;
+				clearPrefetchedTimeRange();
 				long epgFocusTime_ms = getEpgFocusTime_ms();
 				epgView.suggestFocus(epgFocusTime_ms/1000);
 				loadEPGThread.execWhenEnded(()->{
@@ -352,12 +368,14 @@ public class EPGDialog extends StandardDialog implements TimerDataUpdateNotifier
 			@Override public void windowClosing    (WindowEvent e) {}
 			@Override public void windowClosed     (WindowEvent e) {
 				loadEPGThread.stop();
+				loadEPGThread.stopPrefetching();
 				epgViewRepainter.stop();
 			}
 		});
 		
-		if (this.epg.isEmpty()) loadEPGThread.start(getEpgFocusTime_ms());
-		else updateEPGView();
+		updateEPGView();
+		// the loader fetches only blocks of the focus window, that aren't cached or aren't fresh anymore
+		loadEPGThread.start(getEpgFocusTime_ms());
 		reconfigureEPGViewVertScrollBar();
 		reconfigureEPGViewHorizScrollBar();
 		epgViewRepainter.start();
@@ -370,6 +388,49 @@ public class EPGDialog extends StandardDialog implements TimerDataUpdateNotifier
 		return epgFocusTime.getLong(ChronoField.INSTANT_SECONDS)*1000;
 	}
 
+	private long getViewBeginTime_UnixTS()
+	{
+		long beginTime_UnixTS = getEpgFocusTime_ms()/1000 - leadTime_s;
+		if (prefetchedBeginTime_UnixTS!=null) beginTime_UnixTS = Math.min(beginTime_UnixTS, prefetchedBeginTime_UnixTS);
+		return beginTime_UnixTS;
+	}
+
+	private Long getViewEndTime_UnixTS()
+	{
+		if (rangeTime_s<0) return null;
+		long endTime_UnixTS = getEpgFocusTime_ms()/1000 - leadTime_s + rangeTime_s;
+		if (prefetchedEndTime_UnixTS!=null) endTime_UnixTS = Math.max(endTime_UnixTS, prefetchedEndTime_UnixTS);
+		return endTime_UnixTS;
+	}
+
+	private void clearPrefetchedTimeRange()
+	{
+		prefetchedBeginTime_UnixTS = null;
+		prefetchedEndTime_UnixTS = null;
+	}
+
+	private void prefetchEPGIfNeeded()
+	{
+		// prefetch next time block, if visible time range is less than one view width away from the border of loaded data
+		int visibleBegin_s_based = epgView.getRowAnchorTime_s();
+		int visibleWidth_s       = epgView.getRowViewWidth_s();
+		
+		if (visibleBegin_s_based - epgView.getMinTime_s() < visibleWidth_s)
+		{
+			long blockIndex = EPGCache.getBlockIndex(getViewBeginTime_UnixTS()-1);
+			if (loadEPGThread.prefetch(blockIndex))
+				prefetchedBeginTime_UnixTS = EPGCache.getBlockStart(blockIndex);
+		}
+		else if (epgView.getMaxTime_s() - (visibleBegin_s_based + visibleWidth_s) < visibleWidth_s)
+		{
+			Long endTime_UnixTS = getViewEndTime_UnixTS();
+			if (endTime_UnixTS==null) return;
+			long blockIndex = EPGCache.getBlockIndex(endTime_UnixTS);
+			if (loadEPGThread.prefetch(blockIndex))
+				prefetchedEndTime_UnixTS = EPGCache.getBlockStart(blockIndex+1);
+		}
+	}
+
 	private static String getTitle(Bouquet bouquet) {
 		if (bouquet==null) return "EPG";
 		return String.format("EPG for \"%s\"", bouquet.name);
@@ -454,13 +515,12 @@ public class EPGDialog extends StandardDialog implements TimerDataUpdateNotifier
 	}
 
 	private void updateEPGView() {
-		long epgFocusTime_ms = getEpgFocusTime_ms();
-		long beginTime_UnixTS = epgFocusTime_ms/1000 - leadTime_s;
-		Long endTime_UnixTS   = rangeTime_s<0 ? null : (beginTime_UnixTS + rangeTime_s);
+		long beginTime_UnixTS = getViewBeginTime_UnixTS();
+		Long endTime_UnixTS   = getViewEndTime_UnixTS();
 		for (SubService station:stations) {
 			if (station.isMarker()) continue;
 			StationID stationID = station.service.stationID;
-			Vector<EPGevent> events = epg.getEvents(stationID, beginTime_UnixTS, endTime_UnixTS, true);
+			Vector<EPGevent> events = EPGCache.getInstance().getEvents(stationID, beginTime_UnixTS, endTime_UnixTS);
 			Vector<EPGViewEvent> viewEvents = epgView.convertEvents(events);
 			epgView.updateEvents(stationID,viewEvents/*,dataStatus*/);
 		}
@@ -468,6 +528,32 @@ public class EPGDialog extends StandardDialog implements TimerDataUpdateNotifier
 		epgView.repaint();
 	}
 
+	private void updateEPGView(Vector<EPGevent> newEvents) {
+		if (newEvents==null || newEvents.isEmpty()) return;
+		long beginTime_UnixTS = getViewBeginTime_UnixTS();
+		Long endTime_UnixTS   = getViewEndTime_UnixTS();
+		
+		HashMap<String,Vector<EPGevent>> eventsPerStation = new HashMap<>();
+		for (EPGevent event:newEvents) {
+			if (event.sref==null || event.begin_timestamp==null) continue;
+			long end_UnixTS = event.begin_timestamp + (event.duration_sec==null ? 0 : event.duration_sec);
+			if (end_UnixTS < beginTime_UnixTS) continue;
+			if (endTime_UnixTS!=null && event.begin_timestamp > endTime_UnixTS) continue;
+			StationID stationID = StationID.parseIDStr(event.sref);
+			if (stationID==null) continue;
+			eventsPerStation.computeIfAbsent(stationID.toIDStr(), k->new Vector<>()).add(event);
+		}
+		
+		for (SubService station:stations) {
+			if (station.isMarker()) continue;
+			StationID stationID = station.service.stationID;
+			Vector<EPGevent> events = eventsPerStation.remove(stationID.toIDStr());
+			if (events!=null)
+				epgView.mergeEvents(stationID, epgView.convertEvents(events));
+		}
+		epgView.repaint();
+	}
+
 	@Override
 	public void timersWereUpdated(Timers timers) {
 		timersWereUpdated(timers, true);
@@ -518,8 +604,9 @@ public class EPGDialog extends StandardDialog implements TimerDataUpdateNotifier
 					.getInstance()
 					.createMenuForEPGevent(this, window, ()->event==null ? null : event.event, () -> {
 						if (event!=null)
-							event.updateASEData();
-						epgView.repaint();
+							epgView.updateASEData(event);
+						else
+							epgView.repaint();
 					});
 		}
 		
@@ -8,13 +8,24 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import net.schwarzbaer.java.lib.openwebif.EPGevent;
 import net.schwarzbaer.java.tools.openwebifcontroller.OpenWebifController;
@@ -22,6 +33,7 @@ import net.schwarzbaer.java.tools.openwebifcontroller.OpenWebifController;
 class EPGEventGenres
 {
 	private static final Comparator<EPGEventGenre> COMPARATOR = Comparator.<EPGEventGenre,String>comparing(name -> name.name);
+	private static final long WRITE_DELAY_ms = 5000;
 
 	record EPGEventGenre( long id, String name, boolean isNew ) {
 		EPGEventGenre(EPGevent event) { this(event.genreid, event.genre, true); }
@@ -47,44 +59,113 @@ class EPGEventGenres
 	private static final EPGEventGenres instance = new EPGEventGenres();
 	static EPGEventGenres getInstance() { return instance; }
 	
-	private final HashMap<Long,HashSet<EPGEventGenre>> genres;
+	/** immutable state of registry -> readers never need a lock */
+	private record Snapshot( Map<Long,Set<EPGEventGenre>> genres, List<EPGEventGenre> sorted )
+	{
+		static Snapshot create(Map<Long,? extends Set<EPGEventGenre>> genres)
+		{
+			HashMap<Long,Set<EPGEventGenre>> map = new HashMap<>();
+			genres.forEach( (id,names) -> map.put(id, Collections.unmodifiableSet(new HashSet<>(names))) );
+			
+			ArrayList<Long> ids = new ArrayList<>( map.keySet() );
+			ids.sort(null);
+			
+			ArrayList<EPGEventGenre> list = new ArrayList<>();
+			ids.forEach( id -> {
+				ArrayList<EPGEventGenre> sortedNames = new ArrayList<>( map.get(id) );
+				sortedNames.sort(COMPARATOR);
+				list.addAll( sortedNames );
+			});
+			
+			return new Snapshot( Collections.unmodifiableMap(map), Collections.unmodifiableList(list) );
+		}
+		
+		boolean contains(EPGEventGenre genre)
+		{
+			Set<EPGEventGenre> names = genres.get(genre.id);
+			return names!=null && names.contains(genre);
+		}
+	}
+	
+	private volatile Snapshot snapshot;
+	private final AtomicBoolean isDirty;
+	private final Object fileLock;
+	private final ScheduledExecutorService writer;
+	private ScheduledFuture<?> pendingWrite;
 	
 	EPGEventGenres()
 	{
-		genres = new HashMap<>();
+		snapshot = Snapshot.create(Map.of());
+		isDirty = new AtomicBoolean(false);
+		fileLock = new Object();
+		pendingWrite = null;
+		writer = Executors.newSingleThreadScheduledExecutor(run->{
+			Thread thread = new Thread(run, "EPGEventGenres.Writer");
+			thread.setDaemon(true);
+			return thread;
+		});
 		readFromFile();
+		Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "EPGEventGenres.Flush"));
 	}
 	
 	List<EPGEventGenre> getEPGEventGenresSorted()
 	{
-		ArrayList<Long> ids = new ArrayList<>( genres.keySet() );
-		ids.sort(null);
-		
-		ArrayList<EPGEventGenre> list = new ArrayList<>();
-		ids.forEach( id -> {
-			HashSet<EPGEventGenre> names = genres.get(id);
-			ArrayList<EPGEventGenre> sortedNames = new ArrayList<>( names );
-			sortedNames.sort(COMPARATOR);
-			
-			sortedNames.forEach( list::add );
-		});
-		
-		return list;
+		return snapshot.sorted;
 	}
 
 	EPGEventGenres scanGenres(Vector<EPGevent> events)
 	{
-		if (events!=null)
-			for (EPGevent event : events)
-				getOrCreateNamesList(event.genreid).add( new EPGEventGenre(event) );
+		if (events==null) return this;
+		
+		// usually all genres are known -> check without lock
+		Snapshot current = snapshot;
+		Vector<EPGEventGenre> unknownGenres = null;
+		for (EPGevent event : events)
+		{
+			EPGEventGenre genre = new EPGEventGenre(event);
+			if (current.contains(genre)) continue;
+			if (unknownGenres==null) unknownGenres = new Vector<>();
+			unknownGenres.add(genre);
+		}
+		
+		if (unknownGenres!=null)
+			addGenres(unknownGenres);
 		return this;
 	}
-
-	private HashSet<EPGEventGenre> getOrCreateNamesList(long genreID)
+	
+	private synchronized void addGenres(Vector<EPGEventGenre> newGenres)
+	{
+		HashMap<Long,HashSet<EPGEventGenre>> genres = new HashMap<>();
+		snapshot.genres.forEach( (id,names) -> genres.put(id, new HashSet<>(names)) );
+		
+		boolean hasChanged = false;
+		boolean hasNewGenres = false;
+		for (EPGEventGenre genre : newGenres)
+			if (genres.computeIfAbsent(genre.id, id->new HashSet<>()).add(genre))
+			{
+				hasChanged = true;
+				if (genre.isNew) hasNewGenres = true;
+			}
+		
+		if (hasChanged)
+			snapshot = Snapshot.create(genres);
+		if (hasNewGenres)
+			isDirty.set(true);
+	}
+	
+	/** writes file after a short delay, if new genres were found; further calls in this time postpone the write */
+	synchronized void writeToFileLater()
+	{
+		if (!isDirty.get()) return;
+		if (pendingWrite!=null) pendingWrite.cancel(false);
+		pendingWrite = writer.schedule(this::flush, WRITE_DELAY_ms, TimeUnit.MILLISECONDS);
+	}
+	
+	void flush()
 	{
-		HashSet<EPGEventGenre> genreNames = genres.get(genreID);
-		if (genreNames==null) genres.put(genreID, genreNames = new HashSet<>());
-		return genreNames;
+		synchronized (this) { pendingWrite = null; }
+		if (isDirty.get())
+			writeToFile();
 	}
 
 	void readFromFile()
@@ -97,46 +178,54 @@ class EPGEventGenres
 		}
 		System.out.printf("Read EPGEvent Genres from file \"%s\" ...%n", file.getAbsolutePath());
 		
-		genres.clear();
+		HashMap<Long,HashSet<EPGEventGenre>> genres = new HashMap<>();
 		
-		try (BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)))
+		synchronized (fileLock)
 		{
-			String value, line;
-			Long genreID = null;
-			HashSet<EPGEventGenre> genreNames = null;
-			while ( (line=in.readLine())!=null )
+			try (BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)))
 			{
-				if (line.isBlank())
-				{
-					genreID = null;
-					genreNames = null;
-					continue;
-				}
-				
-				if ( (value=getValue(line, "Genre: "))!=null )
+				String value, line;
+				Long genreID = null;
+				HashSet<EPGEventGenre> genreNames = null;
+				while ( (line=in.readLine())!=null )
 				{
-					genreNames = null;
-					try { genreID = Long.parseLong(value); }
-					catch (NumberFormatException ex) {
-						System.err.printf("NumberFormatException while parsing line \"%s\": %s%n", line, ex.getMessage());
-						// ex.printStackTrace();
+					if (line.isBlank())
+					{
 						genreID = null;
+						genreNames = null;
 						continue;
 					}
-					genreNames = getOrCreateNamesList(genreID);
+					
+					if ( (value=getValue(line, "Genre: "))!=null )
+					{
+						genreNames = null;
+						try { genreID = Long.parseLong(value); }
+						catch (NumberFormatException ex) {
+							System.err.printf("NumberFormatException while parsing line \"%s\": %s%n", line, ex.getMessage());
+							// ex.printStackTrace();
+							genreID = null;
+							continue;
+						}
+						genreNames = genres.computeIfAbsent(genreID, id->new HashSet<>());
+					}
+					
+					if ( (value=getValue(line, "Name = "))!=null && genreNames!=null && genreID!=null)
+						genreNames.add( new EPGEventGenre(genreID, value, false) );
 				}
-				
-				if ( (value=getValue(line, "Name = "))!=null && genreNames!=null && genreID!=null)
-					genreNames.add( new EPGEventGenre(genreID, value, false) );
+			}
+			catch (FileNotFoundException ex) {}
+			catch (IOException ex)
+			{
+				System.err.printf("IOException while reading file \"%s\": %s%n", file.getAbsolutePath(), ex.getMessage());
+				// ex.printStackTrace();
 			}
 		}
-		catch (FileNotFoundException ex) {}
-		catch (IOException ex)
+		
+		synchronized (this)
 		{
-			System.err.printf("IOException while reading file \"%s\": %s%n", file.getAbsolutePath(), ex.getMessage());
-			// ex.printStackTrace();
+			snapshot = Snapshot.create(genres);
+			isDirty.set(false);
 		}
-		
 		System.out.printf("Done%n");
 	}
 	
@@ -155,34 +244,53 @@ class EPGEventGenres
 			System.err.printf("Can't write EPGEvent Genres to file.%n");
 			return;
 		}
-		System.out.printf("Write EPGEvent Genres to file \"%s\" ...%n", file.getAbsolutePath());
 		
-		try (PrintWriter out = new PrintWriter(file, StandardCharsets.UTF_8))
+		synchronized (fileLock)
 		{
-			Vector<Long> genreIDs = new Vector<>( genres.keySet() );
-			genreIDs.sort(null);
+			System.out.printf("Write EPGEvent Genres to file \"%s\" ...%n", file.getAbsolutePath());
+			
+			// genres found while writing will set dirty flag again
+			isDirty.set(false);
+			Snapshot current = snapshot;
 			
-			for (Long genreID : genreIDs)
-				if (genreID!=null)
+			// write to temp file first and replace old file afterwards -> no half written file on crash
+			File tempFile = new File(file.getAbsoluteFile().getParentFile(), file.getName()+".tmp");
+			try (PrintWriter out = new PrintWriter(tempFile, StandardCharsets.UTF_8))
+			{
+				Long lastGenreID = null;
+				for (EPGEventGenre genre : current.sorted)
 				{
-					out.printf("Genre: %d%n", genreID);
-					
-					HashSet<EPGEventGenre> names = genres.get(genreID);
-					Vector<EPGEventGenre> namesVec = new Vector<>( names );
-					namesVec.sort(COMPARATOR);
-					
-					for (EPGEventGenre name : namesVec)
-						out.printf("Name = %s%n", name.name);
-					
-					out.printf("%n");
+					if (lastGenreID==null || lastGenreID.longValue()!=genre.id)
+					{
+						if (lastGenreID!=null) out.printf("%n");
+						out.printf("Genre: %d%n", genre.id);
+						lastGenreID = genre.id;
+					}
+					out.printf("Name = %s%n", genre.name);
 				}
+				if (lastGenreID!=null) out.printf("%n");
+			}
+			catch (IOException ex)
+			{
+				System.err.printf("IOException while writing file \"%s\": %s%n", tempFile.getAbsolutePath(), ex.getMessage());
+				// ex.printStackTrace();
+				isDirty.set(true);
+				return;
+			}
+			
+			try
+			{
+				try { Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE); }
+				catch (AtomicMoveNotSupportedException ex) { Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING); }
+			}
+			catch (IOException ex)
+			{
+				System.err.printf("IOException while replacing file \"%s\": %s%n", file.getAbsolutePath(), ex.getMessage());
+				// ex.printStackTrace();
+				isDirty.set(true);
+			}
+			
+			System.out.printf("Done%n");
 		}
-		catch (IOException ex)
-		{
-			System.err.printf("IOException while writing file \"%s\": %s%n", file.getAbsolutePath(), ex.getMessage());
-			// ex.printStackTrace();
-		}
-		
-		System.out.printf("Done%n");
 	}
 }
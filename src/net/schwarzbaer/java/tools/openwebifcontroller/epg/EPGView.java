@@ -13,10 +13,16 @@ import java.awt.font.FontRenderContext;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.io.PrintStream;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.TimeZone;
 import java.util.Vector;
 
@@ -61,6 +67,10 @@ class EPGView extends Canvas {
 	private static final int HEADERHEIGHT = 20;
 	private static final int STATIONWIDTH = 100;
 	
+	private static final int TILE_WIDTH = 256;
+	private static final int TILE_ROWS  = 8;
+	private static final int MAX_CACHED_TILES = 128;
+	
 	private static final BufferedImage EYE_IMAGE = ImageTools.convert(
 			GrayCommandIcons.Visible.getImageFromSource(),
 			ImageTools.keepAlpha( rgb -> 0xFF9300 )
@@ -68,8 +78,9 @@ class EPGView extends Canvas {
 	
 	private final Calendar calendar;
 	private final long baseTimeOffset_s;
-	private final HashMap<String, Vector<EPGViewEvent>> events;
+	private final HashMap<String, StationEvents> events;
 	private final HashMap<String, HashMap<Long,Timer>> timers;
+	private final LinkedHashMap<Long, Tile> renderCache;
 	private final Vector<SubService> stations;
 	private int rowHeight;
 	private int rowOffsetY;
@@ -82,6 +93,7 @@ class EPGView extends Canvas {
 	private int scaleTicksBaseTime_s_based;
 	private EPGViewEvent hoveredEvent;
 	private int repaintCounter;
+	private long lastRepaintTime_ns;
 	private StationID currentStation;
 	private Integer hoveredStationIndex;
 	public final ToolTip toolTip;
@@ -89,6 +101,7 @@ class EPGView extends Canvas {
 	EPGView(Vector<SubService> stations, long focusTime_s) {
 		this.stations = stations;
 		repaintCounter = 0;
+		lastRepaintTime_ns = 0;
 		
 		calendar = Calendar.getInstance(TimeZone.getTimeZone("CET"), Locale.GERMANY);
 		calendar.set(Calendar.HOUR_OF_DAY, 0);
@@ -109,6 +122,10 @@ class EPGView extends Canvas {
 		rowOffsetY = 0;
 		events = new HashMap<>();
 		timers = new HashMap<>();
+		renderCache = new LinkedHashMap<>(16, 0.75f, true) {
+			private static final long serialVersionUID = 4245871553390547717L;
+			@Override protected boolean removeEldestEntry(Map.Entry<Long, Tile> eldest) { return size() > MAX_CACHED_TILES; }
+		};
 		hoveredEvent = null;
 		currentStation = null;
 		hoveredStationIndex = null;
@@ -151,10 +168,10 @@ class EPGView extends Canvas {
 	}
 
 	public int  getRowHeight() { return rowHeight; }
-	public void setRowHeight(int rowHeight) { this.rowHeight = rowHeight; }
+	public void setRowHeight(int rowHeight) { this.rowHeight = rowHeight; invalidateRenderCache(); }
 
 	public int getTimeScale_s(int width_px) { return Math.round( width_px * timeScale ); }
-	public void setTimeScale(int width_px, int time_s) { timeScale = time_s / (float)width_px; }
+	public void setTimeScale(int width_px, int time_s) { timeScale = time_s / (float)width_px; invalidateRenderCache(); }
 
 	@SuppressWarnings("unused")
 	private void setDate(int year, int month, int date, int hourOfDay, int minute, int second) {
@@ -242,6 +259,7 @@ class EPGView extends Canvas {
 	}
 
 	synchronized void setTimers(Vector<Timer> timers) {
+		invalidateRenderCache();
 		this.timers.clear();
 		for (Timer timer:timers) {
 			HashMap<Long, Timer> stationTimerEvents = this.timers.get(timer.serviceref);
@@ -292,6 +310,72 @@ class EPGView extends Canvas {
 		}
 		
 	}
+	static class StationEvents {
+		
+		private final EPGViewEvent[] events; // sorted by begin time
+		private final int[] maxEnd;          // maxEnd[i] == max end time of events[0..i]  ->  monotonic
+		private final List<EPGViewEvent> eventList;
+		final int minTime_s_based;
+		final int maxTime_s_based;
+		
+		StationEvents(Vector<EPGViewEvent> viewEvents) {
+			events = viewEvents.toArray(EPGViewEvent[]::new);
+			Arrays.sort(events, Comparator.comparingInt(ev->ev.begin_s_based));
+			maxEnd = new int[events.length];
+			for (int i=0; i<events.length; i++)
+				maxEnd[i] = i==0 ? events[i].end_s_based : Math.max(maxEnd[i-1], events[i].end_s_based);
+			eventList = Collections.unmodifiableList(Arrays.asList(events));
+			minTime_s_based = events.length==0 ? 0 : events[0].begin_s_based;
+			maxTime_s_based = events.length==0 ? 0 : maxEnd[events.length-1];
+		}
+		
+		boolean isEmpty() { return events.length==0; }
+		List<EPGViewEvent> getAll() { return eventList; }
+		
+		/** index of first event with begin time > time_s_based */
+		private int getBeginUpperBound(int time_s_based) {
+			int lo = 0, hi = events.length;
+			while (lo<hi) {
+				int mid = (lo+hi)>>>1;
+				if (events[mid].begin_s_based <= time_s_based) lo = mid+1; else hi = mid;
+			}
+			return lo;
+		}
+		
+		/** index of first event, that could end at or after time_s_based */
+		private int getMaxEndLowerBound(int time_s_based) {
+			int lo = 0, hi = events.length;
+			while (lo<hi) {
+				int mid = (lo+hi)>>>1;
+				if (maxEnd[mid] < time_s_based) lo = mid+1; else hi = mid;
+			}
+			return lo;
+		}
+		
+		/** all events, that could overlap [from_s_based, to_s_based] */
+		List<EPGViewEvent> getRange(int from_s_based, int to_s_based) {
+			int first = getMaxEndLowerBound(from_s_based);
+			int last  = getBeginUpperBound(to_s_based);
+			if (first>=last) return Collections.emptyList();
+			return eventList.subList(first, last);
+		}
+		
+		/** shortest event covering time_s_based */
+		EPGViewEvent getCoveringEvent(int time_s_based) {
+			EPGViewEvent result = null;
+			for (int i = getBeginUpperBound(time_s_based)-1; i>=0 && maxEnd[i]>=time_s_based; i--) {
+				EPGViewEvent event = events[i];
+				if (!event.covers(time_s_based)) continue;
+				if (result==null) { result = event; continue; }
+				int duration       = event .end_s_based - event .begin_s_based;
+				int resultDuration = result.end_s_based - result.begin_s_based;
+				if (duration<resultDuration || (duration==resultDuration && event.begin_s_based<result.begin_s_based))
+					result = event;
+			}
+			return result;
+		}
+	}
+	
 	Vector<EPGViewEvent> convertEvents(Vector<EPGevent> events) {
 		if (events==null || events.isEmpty()) return null;
 		Vector<EPGViewEvent> result = new Vector<>(events.size());
@@ -309,24 +393,53 @@ class EPGView extends Canvas {
 		String key = stationID.toIDStr();
 		//dataStatus.determineDataChange(events.get(key),viewEvents);
 		if (viewEvents==null) events.remove(key);
-		else                  events.put(key, viewEvents);
+		else                  events.put(key, new StationEvents(viewEvents));
+		invalidateRenderCache(key);
+	}
+
+	synchronized void mergeEvents(StationID stationID, Vector<EPGViewEvent> newEvents) {
+		if (newEvents==null || newEvents.isEmpty()) return;
+		String key = stationID.toIDStr();
+		StationEvents oldEvents = events.get(key);
+		boolean isFirstData = events.isEmpty();
+		
+		Vector<EPGViewEvent> merged = new Vector<>(newEvents);
+		if (oldEvents!=null) {
+			HashSet<Long> newIDs = new HashSet<>();
+			for (EPGViewEvent event:newEvents)
+				if (event.event.id!=null) newIDs.add(event.event.id);
+			for (EPGViewEvent event:oldEvents.getAll())
+				if (event.event.id==null || !newIDs.contains(event.event.id))
+					merged.add(event);
+		}
+		
+		StationEvents stationEvents = new StationEvents(merged);
+		events.put(key, stationEvents);
+		invalidateRenderCache(key);
+		
+		if (isFirstData) {
+			minTime_s_based = stationEvents.minTime_s_based;
+			maxTime_s_based = stationEvents.maxTime_s_based;
+		} else {
+			minTime_s_based = Math.min(minTime_s_based, stationEvents.minTime_s_based);
+			maxTime_s_based = Math.max(maxTime_s_based, stationEvents.maxTime_s_based);
+		}
 	}
 
 	synchronized void updateMinMaxTime() {
 		Integer min = null;
 		Integer max = null;
-		for (Vector<EPGViewEvent> eventList:events.values()) {
-			for (EPGViewEvent event:eventList) {
-				min = min == null ? event.begin_s_based : Math.min(min, event.begin_s_based);
-				max = max == null ? event.  end_s_based : Math.max(max, event.  end_s_based);
-			}
+		for (StationEvents stationEvents:events.values()) {
+			if (stationEvents.isEmpty()) continue;
+			min = min == null ? stationEvents.minTime_s_based : Math.min(min, stationEvents.minTime_s_based);
+			max = max == null ? stationEvents.maxTime_s_based : Math.max(max, stationEvents.maxTime_s_based);
 		}
 		int now = (int) (System.currentTimeMillis() / 1000 - baseTimeOffset_s);
 		minTime_s_based = min == null ? now : min;
 		maxTime_s_based = max == null ? now : max;
 	}
 	
-	synchronized Vector<EPGViewEvent> getEvents(StationID stationID) {
+	synchronized StationEvents getEvents(StationID stationID) {
 		return events.get(stationID.toIDStr());
 	}
 	
@@ -337,22 +450,10 @@ class EPGView extends Canvas {
 		SubService subService = stations.get(rowIndex);
 		if (subService.isMarker()) return null;
 		
-		Vector<EPGViewEvent> stationEvents = getEvents(subService.service.stationID);
+		StationEvents stationEvents = getEvents(subService.service.stationID);
 		if (stationEvents==null) return null;
 		
-		Vector<EPGViewEvent> coveringEvents = new Vector<>();
-		for (EPGViewEvent event:stationEvents)
-			if (event.covers(time_s_based))
-				//return event;
-				coveringEvents.add(event);
-		
-		if (coveringEvents.isEmpty())
-			return null;
-		
-		if (coveringEvents.size()>1)
-			coveringEvents.sort(Comparator.<EPGViewEvent,Long>comparing(ev->ev.event.duration_sec).thenComparing(ev->ev.event.begin_timestamp));
-		
-		return coveringEvents.firstElement();
+		return stationEvents.getCoveringEvent(time_s_based);
 	}
 
 
@@ -400,6 +501,7 @@ class EPGView extends Canvas {
 	protected void paintCanvas(Graphics g, final int x0_, final int y0_, final int width, final int height) {
 		if (!(g instanceof Graphics2D)) return;
 		final Graphics2D g2 = (Graphics2D) g;
+		long repaintStart_ns = System.nanoTime();
 		
 		Shape oldClip = g2.getClip();
 		
@@ -415,6 +517,98 @@ class EPGView extends Canvas {
 		
 		paintNowMarker(g2, x0_, y0_,        height);
 		toolTip.paint (g2, x0_, y0_, width, height);
+		
+		lastRepaintTime_ns = System.nanoTime() - repaintStart_ns;
+	}
+
+	private class TimeMapping {
+		final int x;
+		final float time_s_based;
+		
+		TimeMapping(int x, float time_s_based) {
+			this.x = x;
+			this.time_s_based = time_s_based;
+		}
+		
+		int getX(int time_s_based) {
+			return x + Math.round( (time_s_based - this.time_s_based)/timeScale );
+		}
+	}
+	
+	private static class Tile {
+		final BufferedImage image;
+		final float beginTime_s_based;
+		
+		Tile(BufferedImage image, float beginTime_s_based) {
+			this.image = image;
+			this.beginTime_s_based = beginTime_s_based;
+		}
+	}
+	
+	private static long getTileKey(int rowBlock, int column) {
+		return (((long)rowBlock)<<32) | (column & 0xFFFFFFFFL);
+	}
+	
+	private synchronized void invalidateRenderCache() {
+		renderCache.clear();
+	}
+	
+	private synchronized void invalidateRenderCache(String stationKey) {
+		for (int i=0; i<stations.size(); i++) {
+			SubService station = stations.get(i);
+			if (station.isMarker() || !station.service.stationID.toIDStr().equals(stationKey)) continue;
+			int rowBlock = i/TILE_ROWS;
+			renderCache.keySet().removeIf(key -> (int)(key>>32) == rowBlock);
+		}
+	}
+	
+	public void updateASEData(EPGViewEvent event) {
+		event.updateASEData();
+		invalidateRenderCache();
+		repaint();
+	}
+	
+	private synchronized Tile getTile(int rowBlock, int column, int rowTextOffsetY) {
+		long key = getTileKey(rowBlock, column);
+		Tile tile = renderCache.get(key);
+		if (tile!=null) return tile;
+		
+		int tileHeight = TILE_ROWS*rowHeight;
+		float beginTime_s_based = column*TILE_WIDTH*timeScale;
+		int   tileBegin_s_based = (int) Math.floor( beginTime_s_based );
+		int   tileEnd_s_based   = (int) Math.ceil ( beginTime_s_based + TILE_WIDTH*timeScale );
+		
+		BufferedImage image = new BufferedImage(TILE_WIDTH, tileHeight, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g2 = image.createGraphics();
+		g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_LCD_HRGB);
+		g2.setFont(getFont());
+		
+		TimeMapping mapping = new TimeMapping(0, beginTime_s_based);
+		Rectangle tileClip = new Rectangle(0, 0, TILE_WIDTH, tileHeight);
+		for (int i=0; i<TILE_ROWS; i++) {
+			int stationIndex = rowBlock*TILE_ROWS + i;
+			if (stationIndex<0 || stationIndex>=stations.size()) continue;
+			
+			SubService station = stations.get(stationIndex);
+			int rowY = i*rowHeight;
+			if (station.isMarker()) {
+				paintMarkerBar(g2, mapping, rowY, tileBegin_s_based, tileEnd_s_based, tileClip);
+				continue;
+			}
+			
+			StationEvents        events = getEvents(station.service.stationID);
+			HashMap<Long,Timer>  timers = getTimers(station.service.stationID);
+			paintTimers(g2, mapping, rowY, tileClip, timers, tileBegin_s_based, tileEnd_s_based);
+			if (events!=null)
+				for (EPGViewEvent event:events.getRange(tileBegin_s_based, tileEnd_s_based))
+					paintEvent(g2, mapping, null, rowY, rowTextOffsetY, tileClip, timers, event, false, null);
+		}
+		g2.dispose();
+		
+		tile = new Tile(image, beginTime_s_based);
+		renderCache.put(key, tile);
+		return tile;
 	}
 
 	private void paintMainView(final Graphics2D g2, final int x0_, final int y0_, final int width, final int height) {
@@ -425,32 +619,66 @@ class EPGView extends Canvas {
 		Rectangle mainClip      = new Rectangle(x0_,              y0_+HEADERHEIGHT, width,              height-HEADERHEIGHT);
 		Rectangle eventViewClip = new Rectangle(x0_+STATIONWIDTH, y0_+HEADERHEIGHT, width-STATIONWIDTH, height-HEADERHEIGHT);
 		
-		for (int i=0; i<stations.size(); i++) {
+		// only rows and times, that are visible
+		int firstRow = Math.max(0, rowOffsetY/rowHeight);
+		int lastRow  = Math.min(stations.size()-1, (rowOffsetY+height-HEADERHEIGHT)/rowHeight);
+		int visibleBegin_s_based = rowAnchorTime_s_based;
+		int visibleEnd_s_based   = rowAnchorTime_s_based + (int) Math.ceil( (width-STATIONWIDTH)*timeScale );
+		
+		for (int i=firstRow; i<=lastRow; i++) {
 			SubService station = stations.get(i);
-			Vector<EPGViewEvent> events = station.isMarker() ? null : getEvents(station.service.stationID);
-			HashMap<Long,Timer>  timers = station.isMarker() ? null : getTimers(station.service.stationID);
+			StationEvents events = station.isMarker() ? null : getEvents(station.service.stationID);
+			paintStation(g2, x0_, y0+rowHeight*i, rowTextOffsetY, mainClip, station, i, events!=null);
+		}
+		
+		// static content of event view comes from render cache
+		if (stations.isEmpty()) return;
+		TimeMapping mapping = new TimeMapping(x0_+STATIONWIDTH, rowAnchorTime_s_based);
+		int firstColumn = (int) Math.floor( visibleBegin_s_based / (TILE_WIDTH*timeScale) );
+		int lastColumn  = (int) Math.floor( visibleEnd_s_based   / (TILE_WIDTH*timeScale) );
+		g2.setClip(eventViewClip);
+		for (int rowBlock=firstRow/TILE_ROWS; rowBlock<=lastRow/TILE_ROWS; rowBlock++)
+			for (int column=firstColumn; column<=lastColumn; column++) {
+				Tile tile = getTile(rowBlock, column, rowTextOffsetY);
+				int tileX = x0_ + STATIONWIDTH + Math.round( (tile.beginTime_s_based - rowAnchorTime_s_based)/timeScale );
+				int tileY = y0 + rowBlock*TILE_ROWS*rowHeight;
+				g2.drawImage(tile.image, tileX, tileY, null);
+			}
+		
+		// dynamic content: hovered event and event titles, that stick to left border of event view
+		Color background = getBackground();
+		Integer textMinX = x0_+STATIONWIDTH+2;
+		for (int i=firstRow; i<=lastRow; i++) {
+			SubService station = stations.get(i);
+			if (station.isMarker()) continue;
+			StationEvents events = getEvents(station.service.stationID);
+			if (events==null) continue;
+			HashMap<Long,Timer> timers = getTimers(station.service.stationID);
 			
 			int rowY = y0+rowHeight*i;
-			paintStation(g2, x0_, rowY, rowTextOffsetY, mainClip, station, i, events!=null);
-			if (station.isMarker()) paintMarkerBar(g2, x0_, rowY, width, eventViewClip);
-			paintTimers (g2, x0_, rowY, rowTextOffsetY, eventViewClip, timers);
-			paintEvents (g2, x0_, rowY, rowTextOffsetY, eventViewClip, events, timers);
+			for (EPGViewEvent event:events.getRange(visibleBegin_s_based, visibleBegin_s_based))
+				if (event.begin_s_based<visibleBegin_s_based && (hoveredEvent==null || event.event!=hoveredEvent.event))
+					paintEvent(g2, mapping, textMinX, rowY, rowTextOffsetY, eventViewClip, timers, event, false, background);
+			
+			if (hoveredEvent!=null && hoveredEvent.end_s_based>=visibleBegin_s_based && hoveredEvent.begin_s_based<=visibleEnd_s_based)
+				for (EPGViewEvent event:events.getRange(hoveredEvent.begin_s_based, hoveredEvent.begin_s_based))
+					if (event.event==hoveredEvent.event)
+						paintEvent(g2, mapping, textMinX, rowY, rowTextOffsetY, eventViewClip, timers, hoveredEvent, true, COLOR_EVENT_HOVERED_BG);
 		}
 	}
 
-	private void paintMarkerBar(final Graphics2D g2, final int x0_, final int rowY, final int width, final Rectangle eventViewClip) {
-		int xBase = x0_ + STATIONWIDTH + Math.round( (scaleTicksBaseTime_s_based - rowAnchorTime_s_based)/timeScale );
-		int iQuarter = 0;
-		int xTick = xBase;
+	private void paintMarkerBar(final Graphics2D g2, final TimeMapping mapping, final int rowY, final int begin_s_based, final int end_s_based, final Rectangle eventViewClip) {
+		int iQuarter = Math.floorDiv(begin_s_based - scaleTicksBaseTime_s_based, 900);
+		int xTick = mapping.getX(scaleTicksBaseTime_s_based + iQuarter*900);
 		int lastXTick = xTick;
+		int xEnd = mapping.getX(end_s_based);
 		g2.setClip(eventViewClip);
 		g2.setColor(COLOR_STATION_FRAME);
-		while (lastXTick<=x0_+width) {
-			if (xTick-1>x0_+STATIONWIDTH)
-				g2.drawLine(xTick-1, rowY, lastXTick, rowY+rowHeight-2);
+		while (lastXTick<=xEnd) {
+			g2.drawLine(xTick-1, rowY, lastXTick, rowY+rowHeight-2);
 			iQuarter++;
 			lastXTick = xTick;
-			xTick = xBase + Math.round( iQuarter*900/timeScale );
+			xTick = mapping.getX(scaleTicksBaseTime_s_based + iQuarter*900);
 		}
 	}
 
@@ -483,21 +711,22 @@ class EPGView extends Canvas {
 		}
 	}
 
-	private void paintTimers(final Graphics2D g2, final int x0_, final int rowY, final int rowTextOffsetY, final Rectangle eventViewClip, final HashMap<Long, Timer> timers) {
+	private void paintTimers(
+			final Graphics2D g2, final TimeMapping mapping, final int rowY, final Rectangle eventViewClip,
+			final HashMap<Long, Timer> timers, final int begin_s_based, final int end_s_based) {
 		if (timers == null || timers.isEmpty()) return;
 		for (Timer timer:timers.values()) {
-			boolean isHovered = hoveredEvent!=null && hoveredEvent.event.id!=null && hoveredEvent.event.id.longValue()==timer.eventID;
-			if (!isHovered)
-				paintTimer(g2, x0_, rowY, eventViewClip, timer, isHovered);
+			if (timer.end_s_based < begin_s_based || timer.begin_s_based > end_s_based) continue;
+			paintTimer(g2, mapping, rowY, eventViewClip, timer, false);
 		}
 		
 	}
 
-	private void paintTimer(final Graphics2D g2, final int x0_, final int rowY, final Rectangle eventViewClip, Timer timer, boolean isHovered) {
+	private void paintTimer(final Graphics2D g2, final TimeMapping mapping, final int rowY, final Rectangle eventViewClip, Timer timer, boolean isHovered) {
 		int yBegin = rowY+1;
 		int yEnd   = rowY+rowHeight-3;
-		int xBegin = x0_ + STATIONWIDTH + Math.round( (timer.begin_s_based - rowAnchorTime_s_based)/timeScale );
-		int xEnd   = x0_ + STATIONWIDTH + Math.round( (timer.  end_s_based - rowAnchorTime_s_based)/timeScale );
+		int xBegin = mapping.getX(timer.begin_s_based);
+		int xEnd   = mapping.getX(timer.  end_s_based);
 		Integer center = null;
 		if (xBegin+3>xEnd) {
 			center = (xBegin+xEnd)/2;
@@ -532,28 +761,12 @@ class EPGView extends Canvas {
 		}
 	}
 
-	private void paintEvents(
-			final Graphics2D g2, final int x0_, final int rowY, final int rowTextOffsetY, final Rectangle eventViewClip,
-			final Vector<EPGViewEvent> events, HashMap<Long, Timer> timers) {
-		if (events == null || events.isEmpty()) return;
-		int eventTextOffsetX = 5;
-		boolean isHoveredEventInThisRow = false;
-		for (EPGViewEvent event:events) {
-			boolean isHovered = hoveredEvent!=null && event.event==hoveredEvent.event;
-			if (!isHovered)
-				paintEvent(g2, x0_, rowY, rowTextOffsetY, eventViewClip, timers, eventTextOffsetX, event, isHovered);
-			else
-				isHoveredEventInThisRow = true;
-		}
-		if (isHoveredEventInThisRow && hoveredEvent!=null)
-			paintEvent(g2, x0_, rowY, rowTextOffsetY, eventViewClip, timers, eventTextOffsetX, hoveredEvent, true);
-	}
-
 	private void paintEvent(
-			final Graphics2D g2, final int x0_, final int rowY, final int rowTextOffsetY, final Rectangle eventViewClip,
-			final HashMap<Long, Timer> timers, final int eventTextOffsetX, final EPGViewEvent event, final boolean isHovered) {
-		int xBegin = x0_ + STATIONWIDTH + Math.round( (event.begin_s_based - rowAnchorTime_s_based)/timeScale );
-		int xEnd   = x0_ + STATIONWIDTH + Math.round( (event.  end_s_based - rowAnchorTime_s_based)/timeScale );
+			final Graphics2D g2, final TimeMapping mapping, final Integer textMinX, final int rowY, final int rowTextOffsetY, final Rectangle eventViewClip,
+			final HashMap<Long, Timer> timers, final EPGViewEvent event, final boolean isHovered, final Color background) {
+		int eventTextOffsetX = 5;
+		int xBegin = mapping.getX(event.begin_s_based);
+		int xEnd   = mapping.getX(event.  end_s_based);
 		
 		Rectangle borderRectClip = new Rectangle(xBegin, rowY, xEnd-xBegin-1, rowHeight-1).intersection(eventViewClip);
 		if (!borderRectClip.isEmpty()) {
@@ -565,23 +778,23 @@ class EPGView extends Canvas {
 		Rectangle textClip = new Rectangle(xBegin+1, rowY+1, xEnd-xBegin-3, rowHeight-1-2).intersection(eventViewClip);
 		if (!textClip.isEmpty()) {
 			g2.setClip(textClip);
-			if (isHovered) {
-				g2.setColor(COLOR_EVENT_HOVERED_BG);
+			if (background!=null) {
+				g2.setColor(background);
 				g2.fillRect(xBegin+1, rowY+1, xEnd-xBegin-3, rowHeight-3);
-				
-				if (timers!=null) {
-					Timer timer = timers.get(event.event.id);
-					if (timer!=null) {
-						paintTimer(g2, x0_, rowY, eventViewClip, timer, true);
-						g2.setClip(textClip);
-					}
+			}
+			if (timers!=null) {
+				Timer timer = timers.get(event.event.id);
+				if (timer!=null && (isHovered || background!=null)) {
+					paintTimer(g2, mapping, rowY, eventViewClip, timer, isHovered);
+					g2.setClip(textClip);
 				}
 			}
 			
 			if (event.title!=null)
 			{
 				g2.setColor(COLOR_EVENT_TEXT);
-				int textX = Math.max( xBegin+1+eventTextOffsetX, x0_+STATIONWIDTH+2 );
+				int textX = xBegin+1+eventTextOffsetX;
+				if (textMinX!=null) textX = Math.max( textX, textMinX );
 				if (event.ruleIfAlreadySeen!=null)
 				{
 					g2.drawImage(EYE_IMAGE, textX, rowY + (rowHeight-16)/2, null);
@@ -604,6 +817,9 @@ class EPGView extends Canvas {
 			value >>= 1;
 			if (value==0) break;
 		}
+		
+		g2.setColor(Color.GRAY);
+		g2.drawString(String.format(Locale.ENGLISH, "%1.1f ms", lastRepaintTime_ns/1e6), x0_+2, y0_+HEADERHEIGHT-4);
 	}
 
 	private void paintTimeScale(final Graphics2D g2, final int x0_, final int y0_, final int width) {
@@ -2,50 +2,74 @@ package net.schwarzbaer.java.tools.openwebifcontroller.epg;
 
 import java.util.Objects;
 import java.util.Vector;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
 
 import javax.swing.JButton;
-import javax.swing.SwingUtilities;
 
 import net.schwarzbaer.java.lib.openwebif.Bouquet;
 import net.schwarzbaer.java.lib.openwebif.Bouquet.SubService;
 import net.schwarzbaer.java.lib.openwebif.EPG;
 import net.schwarzbaer.java.lib.openwebif.EPGevent;
+import net.schwarzbaer.java.lib.openwebif.StationID;
+import net.schwarzbaer.java.tools.openwebifcontroller.ForegroundActivity;
 import net.schwarzbaer.java.tools.openwebifcontroller.OWCTools;
 
 abstract class LoadEPGThread {
+	private static final int BLOCK_OVERLAP_min = 20;
+	
 	private final String baseURL;
-	private final EPG epg;
 	private final Vector<SubService> stations;
 	private final Bouquet bouquet;
 	private final JButton button;
+	private final EDTUpdateDispatcher dispatcher;
+	private final Vector<EPGevent> pendingNewEvents;
+	private final ExecutorService prefetcher;
+	private boolean isPrefetching;
+	private Thread prefetchThread;
 
 	private Thread thread;
 	private boolean isRunning;
 	private int leadTime_s;
 	private int rangeTime_s;
+	private int maxParallelRequests;
 	private long focusTime_ms;
 	private Runnable taskAtEnd;
 	
-	LoadEPGThread(String baseURL, EPG epg, Bouquet bouquet) {
-		this(baseURL, epg, Objects.requireNonNull(bouquet), null);
+	LoadEPGThread(String baseURL, Bouquet bouquet) {
+		this(baseURL, Objects.requireNonNull(bouquet), null);
 	}
-	LoadEPGThread(String baseURL, EPG epg, Vector<SubService> stations) {
-		this(baseURL, epg, null, Objects.requireNonNull(stations));
+	LoadEPGThread(String baseURL, Vector<SubService> stations) {
+		this(baseURL, null, Objects.requireNonNull(stations));
 	}
-	private LoadEPGThread(String baseURL, EPG epg, Bouquet bouquet, Vector<SubService> stations) {
+	private LoadEPGThread(String baseURL, Bouquet bouquet, Vector<SubService> stations) {
 		this.baseURL = Objects.requireNonNull(baseURL);
-		this.epg = Objects.requireNonNull(epg);
 		this.bouquet = bouquet;
 		this.stations = stations;
 		isRunning = false;
 		thread = null;
 		taskAtEnd = null;
+		maxParallelRequests = 1;
 		button = OWCTools.createButton("Load EPG", true, e->startStopThread());
+		dispatcher = new EDTUpdateDispatcher();
+		pendingNewEvents = new Vector<>();
+		isPrefetching = false;
+		prefetchThread = null;
+		prefetcher = Executors.newSingleThreadExecutor(run->{
+			Thread thread = new Thread(run, "EPG Prefetcher");
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		});
 		focusTime_ms = System.currentTimeMillis(); 
 	}
 	
 	protected abstract void setStatusOutput(String text);
 	protected abstract void updateEPGView();
+	protected abstract void updateEPGView(Vector<EPGevent> newEvents);
 	protected abstract void reconfigureHorizScrollBar();
 	
 	void setLeadTime(int leadTime_s) {
@@ -56,20 +80,42 @@ abstract class LoadEPGThread {
 		this.rangeTime_s = rangeTime_s;
 	}
 	
+	void setMaxParallelRequests(int maxParallelRequests) {
+		this.maxParallelRequests = Math.max(1, maxParallelRequests);
+	}
+	
 	JButton getButton() {
 		return button;
 	}
 
 	private void loadEPG(long focusTime_ms)
 	{
+		boolean isCanceled = false;
 		synchronized (this) {
-			isRunning = true;
 			button.setText("Cancel EPG Loading");
 			button.setEnabled(true);
+			
+			// start() has interrupted a running prefetch -> wait until it has ended, so both don't load at the same time
+			try { while (isPrefetching) wait(); }
+			catch (InterruptedException ex) { isCanceled = true; }
 		}
 		
-		if (stations!=null) scanEPGbyStations  (focusTime_ms);
-		if (bouquet !=null) scanEPGbyTimeBlocks(focusTime_ms);
+		// show cached data at once (after the cache file has been read)
+		EPGCache.getInstance().waitUntilLoaded();
+		dispatcher.post(EDTUpdateDispatcher.Key.ViewRebuild, ()->{
+			updateEPGView();
+			reconfigureHorizScrollBar();
+		});
+		
+		if (!isCanceled)
+		{
+			Vector<FetchJob> jobs = new Vector<>();
+			if (stations!=null) addStationJobs   (jobs, focusTime_ms);
+			if (bouquet !=null) addTimeBlockJobs (jobs, focusTime_ms);
+			runJobs(jobs);
+		}
+		else
+			System.out.println("EPG loading was canceled");
 		
 		synchronized (this) {
 			isRunning = false;
@@ -78,66 +124,232 @@ abstract class LoadEPGThread {
 		}
 	}
 	
-	private void scanEPGbyTimeBlocks(long focusTime_ms)
+	/** EPG isn't thread-safe -> each request reads into its own instance and only the results are merged into EPGCache (by one thread) */
+	private static EPG createRequestEPG()
+	{
+		return new EPG(new EPG.Tools() {
+			@Override public String getTimeStr(long millis) {
+				return OWCTools.dateTimeFormatter.getTimeStr(millis, false, true, false, true, false);
+			}
+		});
+	}
+	
+	private static class FetchJob
 	{
-		int blockSize_mins = 400;
-		int overlap_mins = 20;
+		final Vector<StationID> stationIDs;
+		final long begin_UnixTS;
+		final Long end_UnixTS;
+		private final Supplier<Vector<EPGevent>> fetch;
+		private Vector<EPGevent> events;
 		
-		System.out.printf("Scan EPG for Bouquet \"%s\": %d min - %d min%n", bouquet.name, -leadTime_s/60, rangeTime_s/60);
-		for (int blockStart_s = -leadTime_s; blockStart_s < rangeTime_s; blockStart_s += (blockSize_mins-overlap_mins)*60)
+		FetchJob(Vector<StationID> stationIDs, long begin_UnixTS, Long end_UnixTS, Supplier<Vector<EPGevent>> fetch)
 		{
-			int blockStart_mins = blockStart_s/60;
-			int blockEnd_mins = blockStart_mins + blockSize_mins;
-			long beginTime_UnixTS = focusTime_ms/1000 + blockStart_s;
-			long endTime_Minutes  = blockSize_mins;
-			
-			boolean isInterrupted = Thread.currentThread().isInterrupted();
-			System.out.printf("EPG for Bouquet \"%s\" (%5d min - %5d min) [%s - %s] %s%n",
-					bouquet.name,
-					blockStart_mins, blockEnd_mins,
-					OWCTools.dateTimeFormatter.getTimeStr(beginTime_UnixTS*1000, true, true, false, true, false),
-					OWCTools.dateTimeFormatter.getTimeStr((beginTime_UnixTS+endTime_Minutes*60)*1000, false, false, false, true, false),
-					isInterrupted ? " -> omitted" : ""
-			);
-			if (isInterrupted) continue;
-			
-			Vector<EPGevent> events = epg.readEPGforBouquet(baseURL, bouquet, beginTime_UnixTS, endTime_Minutes, taskTitle->{
-				SwingUtilities.invokeLater(()->{
-					setStatusOutput(String.format("EPG for Bouquet \"%s\" (%d min - %d min): %s", bouquet.name, blockStart_mins, blockEnd_mins, taskTitle));
-				});
-			});
-			//System.out.printf("%d events found%n", events.size());
-			EPGEventGenres.getInstance().scanGenres(events).writeToFile();
-			updateEPGView();
-			SwingUtilities.invokeLater(this::reconfigureHorizScrollBar);
+			this.stationIDs = Objects.requireNonNull(stationIDs);
+			this.begin_UnixTS = begin_UnixTS;
+			this.end_UnixTS = end_UnixTS;
+			this.fetch = Objects.requireNonNull(fetch);
+			events = null;
+		}
+		
+		FetchJob run()
+		{
+			events = fetch.get();
+			return this;
+		}
+	}
+	
+	private void runJobs(Vector<FetchJob> jobs)
+	{
+		if (!jobs.isEmpty())
+		{
+			int poolSize = Math.max(1, Math.min(maxParallelRequests, jobs.size()));
+			ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+			ExecutorCompletionService<FetchJob> completionService = new ExecutorCompletionService<>(executor);
+			try
+			{
+				for (FetchJob job : jobs)
+					completionService.submit(job::run);
+				
+				for (int i=0; i<jobs.size(); i++)
+				{
+					FetchJob job;
+					try { job = completionService.take().get(); }
+					catch (ExecutionException ex)
+					{
+						System.err.printf("Exception while loading EPG: %s%n", ex.getCause());
+						continue;
+					}
+					if (job.events==null) continue;
+					
+					EPGCache.getLoadedInstance().putEvents(job.stationIDs, job.begin_UnixTS, job.end_UnixTS, job.events);
+					EPGEventGenres.getInstance().scanGenres(job.events).writeToFileLater();
+					postNewEvents(job.events);
+				}
+			}
+			catch (InterruptedException ex)
+			{
+				System.out.println("EPG loading was canceled");
+			}
+			finally
+			{
+				executor.shutdownNow();
+			}
+			EPGCache.getLoadedInstance().writeToFileLater();
 		}
 		System.out.println("... done");
-		SwingUtilities.invokeLater(()->{
-			setStatusOutput("");
+		dispatcher.post(EDTUpdateDispatcher.Key.Status, ()->setStatusOutput(""));
+	}
+	
+	private void postNewEvents(Vector<EPGevent> events)
+	{
+		// events of several requests are collected and put into view together
+		synchronized (pendingNewEvents) { pendingNewEvents.addAll(events); }
+		dispatcher.post(EDTUpdateDispatcher.Key.ViewUpdate, ()->{
+			Vector<EPGevent> newEvents;
+			synchronized (pendingNewEvents)
+			{
+				newEvents = new Vector<>(pendingNewEvents);
+				pendingNewEvents.clear();
+			}
+			updateEPGView(newEvents);
+			reconfigureHorizScrollBar();
 		});
 	}
 	
-	private void scanEPGbyStations(long focusTime_ms)
+	private static Vector<StationID> getStationIDs(Vector<SubService> stations)
 	{
+		Vector<StationID> stationIDs = new Vector<>();
 		for (SubService subservice:stations)
-			if (!subservice.isMarker()) {
+			if (!subservice.isMarker())
+				stationIDs.add(subservice.service.stationID);
+		return stationIDs;
+	}
+	
+	private void addTimeBlockJobs(Vector<FetchJob> jobs, long focusTime_ms)
+	{
+		// blocks are aligned to the blocks of EPGCache, so a fetched block can be marked as completely covered 
+		long focusTime_UnixTS = focusTime_ms/1000;
+		long endTime_Minutes  = EPGCache.BLOCK_LENGTH_s/60 + BLOCK_OVERLAP_min;
+		Vector<StationID> stationIDs = getStationIDs(bouquet.subservices);
+		
+		System.out.printf("Scan EPG for Bouquet \"%s\": %d min - %d min (%d parallel requests)%n", bouquet.name, -leadTime_s/60, rangeTime_s/60, maxParallelRequests);
+		for (long blockIndex = EPGCache.getBlockIndex(focusTime_UnixTS-leadTime_s); EPGCache.getBlockStart(blockIndex) < focusTime_UnixTS+rangeTime_s; blockIndex++)
+		{
+			long beginTime_UnixTS = EPGCache.getBlockStart(blockIndex);
+			int blockStart_mins = (int) ((beginTime_UnixTS-focusTime_UnixTS)/60);
+			int blockEnd_mins = (int) (blockStart_mins + endTime_Minutes);
+			
+			if (EPGCache.getLoadedInstance().isCovered(stationIDs, blockIndex))
+			{
+				System.out.printf("EPG for Bouquet \"%s\" (%5d min - %5d min) -> cached%n", bouquet.name, blockStart_mins, blockEnd_mins);
+				continue;
+			}
+			
+			jobs.add(new FetchJob(stationIDs, beginTime_UnixTS, beginTime_UnixTS+endTime_Minutes*60, ()->{
 				boolean isInterrupted = Thread.currentThread().isInterrupted();
-				System.out.printf("EPG for Station \"%s\"%s%n", subservice.name, isInterrupted ? " -> omitted" : "");
-				if (isInterrupted) continue;
-				long beginTime_UnixTS = focusTime_ms/1000 - leadTime_s;
-				Vector<EPGevent> events = epg.readEPGforService(baseURL, subservice.service.stationID, beginTime_UnixTS, null, taskTitle->{
-					SwingUtilities.invokeLater(()->{
-						setStatusOutput(String.format("EPG for Station \"%s\": %s", subservice.name, taskTitle));
+				System.out.printf("EPG for Bouquet \"%s\" (%5d min - %5d min) [%s - %s] %s%n",
+						bouquet.name,
+						blockStart_mins, blockEnd_mins,
+						OWCTools.dateTimeFormatter.getTimeStr(beginTime_UnixTS*1000, true, true, false, true, false),
+						OWCTools.dateTimeFormatter.getTimeStr((beginTime_UnixTS+endTime_Minutes*60)*1000, false, false, false, true, false),
+						isInterrupted ? " -> omitted" : ""
+				);
+				if (isInterrupted) return null;
+				
+				return createRequestEPG().readEPGforBouquet(baseURL, bouquet, beginTime_UnixTS, endTime_Minutes, taskTitle->{
+					dispatcher.post(EDTUpdateDispatcher.Key.Status, ()->{
+						setStatusOutput(String.format("EPG for Bouquet \"%s\" (%d min - %d min): %s", bouquet.name, blockStart_mins, blockEnd_mins, taskTitle));
 					});
 				});
-				EPGEventGenres.getInstance().scanGenres(events).writeToFile();
-				updateEPGView();
-				SwingUtilities.invokeLater(this::reconfigureHorizScrollBar);
+			}));
+		}
+	}
+	
+	private void addStationJobs(Vector<FetchJob> jobs, long focusTime_ms)
+	{
+		long beginTime_UnixTS = focusTime_ms/1000 - leadTime_s;
+		for (SubService subservice:stations)
+			if (!subservice.isMarker())
+			{
+				Vector<StationID> stationIDs = new Vector<>();
+				stationIDs.add(subservice.service.stationID);
+				jobs.add(new FetchJob(stationIDs, beginTime_UnixTS, null, ()->{
+					boolean isInterrupted = Thread.currentThread().isInterrupted();
+					System.out.printf("EPG for Station \"%s\"%s%n", subservice.name, isInterrupted ? " -> omitted" : "");
+					if (isInterrupted) return null;
+					
+					return createRequestEPG().readEPGforService(baseURL, subservice.service.stationID, beginTime_UnixTS, null, taskTitle->{
+						dispatcher.post(EDTUpdateDispatcher.Key.Status, ()->{
+							setStatusOutput(String.format("EPG for Station \"%s\": %s", subservice.name, taskTitle));
+						});
+					});
+				}));
 			}
-		System.out.println("... done");
-		SwingUtilities.invokeLater(()->{
-			setStatusOutput("");
+	}
+
+	/** loads a single time block in background, if no other loading is running; returns true, if the block will be loaded */
+	synchronized boolean prefetch(long blockIndex)
+	{
+		if (bouquet==null || isRunning() || isPrefetching || prefetcher.isShutdown()) return false;
+		isPrefetching = true;
+		prefetcher.execute(()->{
+			synchronized (this) {
+				if (isRunning) { endPrefetching(); return; }
+				prefetchThread = Thread.currentThread();
+			}
+			try { prefetchBlock(blockIndex); }
+			finally { synchronized (this) { endPrefetching(); } }
 		});
+		return true;
+	}
+	
+	private synchronized void endPrefetching()
+	{
+		prefetchThread = null;
+		isPrefetching = false;
+		notifyAll();
+	}
+	
+	void stopPrefetching()
+	{
+		prefetcher.shutdownNow();
+	}
+	
+	private void prefetchBlock(long blockIndex)
+	{
+		Vector<StationID> stationIDs = getStationIDs(bouquet.subservices);
+		long beginTime_UnixTS = EPGCache.getBlockStart(blockIndex);
+		long endTime_Minutes  = EPGCache.BLOCK_LENGTH_s/60 + BLOCK_OVERLAP_min;
+		String timeRangeStr = String.format("%s - %s",
+				OWCTools.dateTimeFormatter.getTimeStr(beginTime_UnixTS*1000, true, true, false, true, false),
+				OWCTools.dateTimeFormatter.getTimeStr((beginTime_UnixTS+endTime_Minutes*60)*1000, false, false, false, true, false)
+		);
+		
+		Vector<EPGevent> events;
+		if (EPGCache.getLoadedInstance().isCovered(stationIDs, blockIndex))
+		{
+			System.out.printf("Prefetch EPG for Bouquet \"%s\" [%s] -> cached%n", bouquet.name, timeRangeStr);
+			events = new Vector<>();
+			for (StationID stationID : stationIDs)
+				events.addAll(EPGCache.getLoadedInstance().getEvents(stationID, beginTime_UnixTS, beginTime_UnixTS+EPGCache.BLOCK_LENGTH_s));
+		}
+		else
+		{
+			System.out.printf("Prefetch EPG for Bouquet \"%s\" [%s]%n", bouquet.name, timeRangeStr);
+			events = createRequestEPG().readEPGforBouquet(baseURL, bouquet, beginTime_UnixTS, endTime_Minutes, taskTitle->{
+				dispatcher.post(EDTUpdateDispatcher.Key.Status, ()->{
+					setStatusOutput(String.format("Prefetch EPG for Bouquet \"%s\" [%s]: %s", bouquet.name, timeRangeStr, taskTitle));
+				});
+			});
+			dispatcher.post(EDTUpdateDispatcher.Key.Status, ()->setStatusOutput(""));
+			// interrupted by start() -> events could be incomplete and must not mark the block as covered
+			if (events==null || Thread.currentThread().isInterrupted()) return;
+			
+			EPGCache.getLoadedInstance().putEvents(stationIDs, beginTime_UnixTS, beginTime_UnixTS+endTime_Minutes*60, events);
+			EPGCache.getLoadedInstance().writeToFileLater();
+			EPGEventGenres.getInstance().scanGenres(events).writeToFileLater();
+		}
+		postNewEvents(events);
 	}
 
 	synchronized boolean isRunning() {
@@ -151,9 +363,12 @@ abstract class LoadEPGThread {
 	synchronized void start(long focusTime_ms) {
 		this.focusTime_ms = focusTime_ms;
 		if (!isRunning()) {
+			// set here and not in the thread, so prefetch() can't start a new prefetch in the meantime
+			isRunning = true;
+			if (prefetchThread!=null) prefetchThread.interrupt();
 			button.setEnabled(false);
 			thread = new Thread(()->{
-				loadEPG(focusTime_ms);
+				ForegroundActivity.run(()->loadEPG(focusTime_ms));
 				if (taskAtEnd!=null)
 				{
 					taskAtEnd.run();
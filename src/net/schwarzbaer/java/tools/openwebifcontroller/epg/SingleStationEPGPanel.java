@@ -41,6 +41,7 @@ import net.schwarzbaer.java.lib.openwebif.StationID;
 import net.schwarzbaer.java.lib.openwebif.Timers;
 import net.schwarzbaer.java.lib.openwebif.Timers.Timer;
 import net.schwarzbaer.java.lib.system.DateTimeFormatter;
+import net.schwarzbaer.java.tools.openwebifcontroller.ForegroundActivity;
 import net.schwarzbaer.java.tools.openwebifcontroller.OWCTools;
 import net.schwarzbaer.java.tools.openwebifcontroller.TimersPanel.TimerDataUpdateNotifier;
 import net.schwarzbaer.java.tools.openwebifcontroller.alreadyseenevents.AlreadySeenEvents;
@@ -99,7 +100,7 @@ public class SingleStationEPGPanel extends JSplitPane
 		
 		dataAcquisition = new DataAcquisition(
 				epgTableModel, epg, getBaseURL, setStatusOutput, 4*60*60,
-				str -> SwingUtilities.invokeLater(()->showEPGOutput(str))
+				this::showEPGOutput
 		);
 	}
 
@@ -129,15 +130,21 @@ public class SingleStationEPGPanel extends JSplitPane
 		private DataAcquisitionTask<?> currentTask = null;
 		private Thread thread = null;
 		private final long leadTime_s;
+		private final EDTUpdateDispatcher dispatcher;
 		
 		DataAcquisition(EPGTableModel epgTableModel, EPG epg, Supplier<String> getBaseURL, Consumer<String> setStatusOutput, long leadTime_s, Consumer<String> setTextboxOutput)
 		{
 			this.epgTableModel = Objects.requireNonNull(epgTableModel);
 			this.epg = Objects.requireNonNull(epg);
 			this.getBaseURL = Objects.requireNonNull(getBaseURL);
-			this.setStatusOutput = Objects.requireNonNull(setStatusOutput);
-			this.setTextboxOutput = Objects.requireNonNull(setTextboxOutput);
+			Objects.requireNonNull(setStatusOutput);
+			Objects.requireNonNull(setTextboxOutput);
 			this.leadTime_s = leadTime_s;
+			
+			// progress output of EPG loading comes from worker thread -> merged into one EDT task per interval
+			dispatcher = new EDTUpdateDispatcher();
+			this.setStatusOutput  = str -> dispatcher.post(EDTUpdateDispatcher.Key.Status       , ()->setStatusOutput .accept(str));
+			this.setTextboxOutput = str -> dispatcher.post(EDTUpdateDispatcher.Key.TextboxOutput, ()->setTextboxOutput.accept(str));
 		}
 
 		public void readEPG(SubService station)
@@ -166,7 +173,7 @@ public class SingleStationEPGPanel extends JSplitPane
 					if (thread!=null)
 						currentTask = task;
 					else
-						(thread = new Thread(()->threadLoop(task))).start();
+						(thread = new Thread(()->ForegroundActivity.run(()->threadLoop(task)))).start();
 				}
 		}
 
@@ -176,10 +183,15 @@ public class SingleStationEPGPanel extends JSplitPane
 			
 			boolean loopActive = true;
 			while (loopActive) {
-				setValues(new Vector<>(), null, task.getLoadingText(), task);
+				// show cached events at once, loaded events will replace them
+				Vector<EPGevent> cachedEvents = task.getCachedEvents();
+				if (cachedEvents==null || cachedEvents.isEmpty())
+					setValues(new Vector<>(), null, task.getLoadingText(), task);
+				else
+					setValues(cachedEvents, task, task.getLoadingText(), task);
 				
 				Vector<EPGevent> events = task.readEPG(epg, baseURL);
-				EPGEventGenres.getInstance().scanGenres(events).writeToFile();
+				EPGEventGenres.getInstance().scanGenres(events).writeToFileLater();
 				
 				synchronized (this)
 				{
@@ -190,7 +202,7 @@ public class SingleStationEPGPanel extends JSplitPane
 					}
 					else if (currentTask.isEqualTask(task))
 					{
-						setValues(events, task, "", null);
+						setValues(events==null ? cachedEvents : events, task, "", null);
 						thread = null;
 						loopActive = false;
 					}
@@ -254,6 +266,7 @@ public class SingleStationEPGPanel extends JSplitPane
 		}
 		
 		boolean isOk() { return true; }
+		Vector<EPGevent> getCachedEvents() { return null; }
 		abstract Vector<EPGevent> readEPG(EPG epg, String baseURL);
 		
 		
@@ -280,11 +293,21 @@ public class SingleStationEPGPanel extends JSplitPane
 				return !source.isMarker();
 			}
 
+			@Override
+			Vector<EPGevent> getCachedEvents()
+			{
+				long beginTime_UnixTS = System.currentTimeMillis()/1000 - leadTime_s;
+				return EPGCache.getLoadedInstance().getEvents(source.service.stationID, beginTime_UnixTS, null);
+			}
+
 			@Override
 			Vector<EPGevent> readEPG(EPG epg, String baseURL)
 			{
 				long beginTime_UnixTS = System.currentTimeMillis()/1000 - leadTime_s;
-				return epg.readEPGforService(baseURL, source.service.stationID, beginTime_UnixTS, null, this::setDefaultProgressOutput);
+				Vector<EPGevent> events = epg.readEPGforService(baseURL, source.service.stationID, beginTime_UnixTS, null, this::setDefaultProgressOutput);
+				EPGCache.getLoadedInstance().putEvents(List.of(source.service.stationID), beginTime_UnixTS, null, events);
+				EPGCache.getLoadedInstance().writeToFileLater();
+				return events;
 			}
 			
 		}
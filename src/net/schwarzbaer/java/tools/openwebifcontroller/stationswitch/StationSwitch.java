@@ -8,14 +8,12 @@ import java.awt.Font;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Insets;
-import java.awt.image.BufferedImage;
 import java.util.HashSet;
 import java.util.Vector;
 import java.util.function.Supplier;
 
 import javax.swing.BorderFactory;
 import javax.swing.DefaultComboBoxModel;
-import javax.swing.Icon;
 import javax.swing.JButton;
 import javax.swing.JComboBox;
 import javax.swing.JLabel;
@@ -33,7 +31,6 @@ import net.schwarzbaer.java.lib.gui.ProgressDialog;
 import net.schwarzbaer.java.lib.gui.StandardMainWindow;
 import net.schwarzbaer.java.lib.gui.Tables;
 import net.schwarzbaer.java.lib.openwebif.Bouquet;
-import net.schwarzbaer.java.lib.openwebif.EPG;
 import net.schwarzbaer.java.lib.openwebif.OpenWebifTools;
 import net.schwarzbaer.java.lib.openwebif.OpenWebifTools.AbstractMessageResponse;
 import net.schwarzbaer.java.lib.openwebif.OpenWebifTools.BouquetData;
@@ -47,6 +44,7 @@ import net.schwarzbaer.java.tools.openwebifcontroller.OpenWebifController;
 import net.schwarzbaer.java.tools.openwebifcontroller.TimersPanel.TimerDataUpdateNotifier;
 import net.schwarzbaer.java.tools.openwebifcontroller.bouquetsnstations.BouquetsNStations;
 import net.schwarzbaer.java.tools.openwebifcontroller.bouquetsnstations.BouquetsNStations.BouquetsNStationsUpdateNotifier;
+import net.schwarzbaer.java.tools.openwebifcontroller.bouquetsnstations.PiconLoader;
 import net.schwarzbaer.java.tools.openwebifcontroller.controls.AbstractControlPanel;
 import net.schwarzbaer.java.tools.openwebifcontroller.controls.PowerControl;
 import net.schwarzbaer.java.tools.openwebifcontroller.controls.VolumeControl;
@@ -100,12 +98,6 @@ public class StationSwitch {
 		
 		bouquetsNStationsUpdateNotifier = new MyBouquetsNStationsUpdateNotifier();
 		
-		EPG epg = new EPG(new EPG.Tools() {
-			@Override public String getTimeStr(long millis) {
-				return OWCTools.dateTimeFormatter.getTimeStr(millis, false, true, false, true, false);
-			}
-		});
-		
 		EPGDialog.ExternCommands epgDialogCommands = new EPGDialog.ExternCommands() {
 			@Override public void  zapToStation(String baseURL, StationID stationID) {
 				OpenWebifController. zapToStation(stationID, baseURL, logWindow);
@@ -160,7 +152,7 @@ public class StationSwitch {
 			if (bouquet==null) return;
 			
 			EPGDialog.showDialog(
-					mainWindow, baseURL, epg, bouquet,
+					mainWindow, baseURL, bouquet,
 					timerDataUpdateNotifier, bouquetsNStationsUpdateNotifier,
 					epgDialogCommands,
 					OWCTools.createButton("Update Timer Data", GrayCommandIcons.IconGroup.Reload, true, e1->{
@@ -321,15 +313,17 @@ public class StationSwitch {
 		updateBtnAddStation();
 		
 		if (baseURL!=null)
-			new Thread(()->{
-				BufferedImage picon = OpenWebifTools.getPicon(baseURL, station.service.stationID);
-				Icon icon = picon==null ? null : BouquetsNStations.getScaleIcon(picon, 20, Color.BLACK);
+		{
+			PiconLoader piconLoader = PiconLoader.getInstance();
+			piconLoader.setBaseURL(baseURL);
+			piconLoader.getPiconIconAsync(station.service.stationID, 20, Color.BLACK, PiconLoader.Priority.High).thenAccept(icon -> {
 				if (icon!=null)
 					SwingUtilities.invokeLater(()->{
 						label.setIcon(icon);
 						mainWindow.pack();
 					});
-			}).start();
+			});
+		}
 	}
 
 	private JPanel buildGUI(JScrollPane scrollPaneActiveTimers, JLabel labStation, JButton... buttons)